@@ -0,0 +1,583 @@
+package implementations;
+
+import utilities.BSTreeADT;
+import utilities.Iterator;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Implementation of an unbalanced Binary Search Tree (BST) that implements the
+ * BSTreeADT interface without one object per node. Nodes are int slots in
+ * parallel arrays: one array of elements and two arrays of child indices. This
+ * saves the header and reference fields of every BSTreeNode, and keeps the tree
+ * structure in compact arrays. The child arrays grow as needed and can live
+ * off-heap in direct buffers. Slots freed by removeMin and removeMax are reused.
+ *
+ * Because there are no node objects, getRoot, search, removeMin and removeMax
+ * return a new BSTreeNode that holds the resident element but has no children.
+ * Changing that node does not change the tree.
+ *
+ * @param <E> The type of elements stored in the BST, which must be comparable.
+ */
+
+public class ArrayBSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
+    private static final long serialVersionUID = 1L;
+    // Index standing for a missing child or an empty tree
+    private static final int NIL = -1;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final boolean offHeap;
+    private transient Object[] elements;
+    private transient int[] leftArray;
+    private transient int[] rightArray;
+    private transient IntBuffer leftBuffer;
+    private transient IntBuffer rightBuffer;
+    private transient int capacity;
+    // Number of slots ever handed out; slots at or above this are unused
+    private transient int used;
+    // Head of the list of freed slots, chained through the left array
+    private transient int free;
+    private transient int root;
+    private int size;
+
+    // Default constructor initializes an empty, on-heap BST
+    public ArrayBSTree() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    // Parameterized constructor initializes an empty BST with room for the given
+    // number of elements, keeping the child indices off-heap if requested
+    public ArrayBSTree(int initialCapacity, boolean offHeap) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        this.offHeap = offHeap;
+        allocate(Math.max(initialCapacity, 1));
+        clear();
+    }
+
+    /**
+     * Checks if the child indices are stored off-heap.
+     *
+     * @return true if the child arrays are direct buffers, false otherwise
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Returns the number of elements the tree can hold before it grows.
+     *
+     * @return the current capacity
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /* Interface Implementation */
+
+    /**
+     * Returns a detached node holding the element at the root of the BST.
+     *
+     * @return a node holding the root element
+     * @throws NullPointerException if the tree is empty.
+     */
+    @Override
+    public BSTreeNode<E> getRoot() throws NullPointerException {
+        if (isEmpty()) {
+            throw new NullPointerException("The tree is empty.");
+        }
+        return new BSTreeNode<>(element(root));
+    }
+
+    /**
+     * Returns the height of the BST, counting levels breadth-first.
+     *
+     * @return the height of the tree
+     */
+    @Override
+    public int getHeight() {
+        if (root == NIL) {
+            return 0;
+        }
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = root;
+        int height = 0;
+        while (head < tail) {
+            height++;
+            for (int end = tail; head < end; head++) {
+                int slot = queue[head];
+                if (left(slot) != NIL) {
+                    queue[tail++] = left(slot);
+                }
+                if (right(slot) != NIL) {
+                    queue[tail++] = right(slot);
+                }
+            }
+        }
+        return height;
+    }
+
+    /**
+     * Returns the number of elements in the BST.
+     *
+     * @return the size of the tree
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the BST is empty.
+     *
+     * @return true if the tree is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Clears the BST, removing all elements. The capacity is kept.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(elements, 0, capacity, null);
+        root = NIL;
+        free = NIL;
+        used = 0;
+        size = 0;
+    }
+
+    /**
+     * Checks if the BST contains a specific element.
+     *
+     * @param entry the element to search for
+     * @return true if the element is found, false otherwise
+     * @throws NullPointerException if the entry is null
+     */
+    @Override
+    public boolean contains(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException("The entry cannot be null.");
+        }
+        return find(entry) != NIL;
+    }
+
+    /**
+     * Searches for a specific element in the BST and returns a detached node
+     * holding the resident element.
+     *
+     * @param entry the element to search for
+     * @return a node holding the element, or null if not found
+     * @throws NullPointerException if the entry is null
+     */
+    @Override
+    public BSTreeNode<E> search(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException("The entry cannot be null.");
+        }
+        int slot = find(entry);
+        return slot == NIL ? null : new BSTreeNode<>(element(slot));
+    }
+
+    /**
+     * Adds a new element to the BST.
+     *
+     * @param newEntry the element to add
+     * @return true if the element was added, false if it already exists
+     * @throws NullPointerException if the new entry is null
+     */
+    @Override
+    public boolean add(E newEntry) throws NullPointerException {
+        if (newEntry == null) {
+            throw new NullPointerException("The new entry cannot be null.");
+        }
+        if (root == NIL) {
+            root = newSlot(newEntry);
+            size++;
+            return true;
+        }
+        int slot = root;
+        while (true) {
+            int comparison = newEntry.compareTo(element(slot));
+            if (comparison == 0) {
+                return false;
+            }
+            int next = comparison < 0 ? left(slot) : right(slot);
+            if (next == NIL) {
+                int added = newSlot(newEntry);
+                if (comparison < 0) {
+                    setLeft(slot, added);
+                } else {
+                    setRight(slot, added);
+                }
+                size++;
+                return true;
+            }
+            slot = next;
+        }
+    }
+
+    /**
+     * Removes the smallest element from the BST.
+     *
+     * @return a node holding the smallest element, or null if the tree is empty
+     */
+    @Override
+    public BSTreeNode<E> removeMin() {
+        if (root == NIL) {
+            return null;
+        }
+        int parent = NIL;
+        int slot = root;
+        while (left(slot) != NIL) {
+            parent = slot;
+            slot = left(slot);
+        }
+        if (parent == NIL) {
+            root = right(slot);
+        } else {
+            setLeft(parent, right(slot));
+        }
+        return release(slot);
+    }
+
+    /**
+     * Removes the largest element from the BST.
+     *
+     * @return a node holding the largest element, or null if the tree is empty
+     */
+    @Override
+    public BSTreeNode<E> removeMax() {
+        if (root == NIL) {
+            return null;
+        }
+        int parent = NIL;
+        int slot = root;
+        while (right(slot) != NIL) {
+            parent = slot;
+            slot = right(slot);
+        }
+        if (parent == NIL) {
+            root = left(slot);
+        } else {
+            setRight(parent, left(slot));
+        }
+        return release(slot);
+    }
+
+    /* Slot Helpers */
+
+    /**
+     * Finds the slot holding an element equal to the given one.
+     *
+     * @param entry the element to search for
+     * @return the slot, or NIL if not found
+     */
+    private int find(E entry) {
+        int slot = root;
+        while (slot != NIL) {
+            int comparison = entry.compareTo(element(slot));
+            if (comparison == 0) {
+                return slot;
+            }
+            slot = comparison < 0 ? left(slot) : right(slot);
+        }
+        return NIL;
+    }
+
+    /**
+     * Takes a slot from the free list, or the next unused slot, growing the
+     * arrays when they are full.
+     *
+     * @param element the element to store in the slot
+     * @return the slot, with no children
+     */
+    private int newSlot(E element) {
+        int slot;
+        if (free != NIL) {
+            slot = free;
+            free = left(slot);
+        } else {
+            if (used == capacity) {
+                allocate(capacity + Math.max(capacity >> 1, 1));
+            }
+            slot = used++;
+        }
+        elements[slot] = element;
+        setLeft(slot, NIL);
+        setRight(slot, NIL);
+        return slot;
+    }
+
+    /**
+     * Puts an unlinked slot on the free list and returns its element in a
+     * detached node.
+     *
+     * @param slot the slot that was unlinked from the tree
+     * @return a node holding the removed element
+     */
+    private BSTreeNode<E> release(int slot) {
+        BSTreeNode<E> removed = new BSTreeNode<>(element(slot));
+        elements[slot] = null;
+        setLeft(slot, free);
+        free = slot;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Resizes the arrays to a new capacity, keeping the slots in use.
+     *
+     * @param newCapacity the number of slots to hold
+     */
+    private void allocate(int newCapacity) {
+        elements = elements == null ? new Object[newCapacity] : Arrays.copyOf(elements, newCapacity);
+        if (offHeap) {
+            leftBuffer = grow(leftBuffer, newCapacity);
+            rightBuffer = grow(rightBuffer, newCapacity);
+        } else {
+            leftArray = leftArray == null ? new int[newCapacity] : Arrays.copyOf(leftArray, newCapacity);
+            rightArray = rightArray == null ? new int[newCapacity] : Arrays.copyOf(rightArray, newCapacity);
+        }
+        capacity = newCapacity;
+    }
+
+    /**
+     * Creates a direct buffer of a new capacity holding the contents of an old
+     * one.
+     *
+     * @param old         the buffer to copy, or null
+     * @param newCapacity the number of ints to hold
+     * @return the new buffer
+     */
+    private static IntBuffer grow(IntBuffer old, int newCapacity) {
+        IntBuffer buffer = ByteBuffer.allocateDirect(newCapacity * Integer.BYTES)
+                .order(ByteOrder.nativeOrder()).asIntBuffer();
+        if (old != null) {
+            old.rewind();
+            buffer.put(old);
+            buffer.rewind();
+        }
+        return buffer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E element(int slot) {
+        return (E) elements[slot];
+    }
+
+    private int left(int slot) {
+        return offHeap ? leftBuffer.get(slot) : leftArray[slot];
+    }
+
+    private int right(int slot) {
+        return offHeap ? rightBuffer.get(slot) : rightArray[slot];
+    }
+
+    private void setLeft(int slot, int child) {
+        if (offHeap) {
+            leftBuffer.put(slot, child);
+        } else {
+            leftArray[slot] = child;
+        }
+    }
+
+    private void setRight(int slot, int child) {
+        if (offHeap) {
+            rightBuffer.put(slot, child);
+        } else {
+            rightArray[slot] = child;
+        }
+    }
+
+    /**
+     * Writes the tree as its slot arrays, so it is restored with the same shape
+     * without re-adding every element.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(used);
+        out.writeInt(root);
+        out.writeInt(free);
+        for (int slot = 0; slot < used; slot++) {
+            out.writeObject(elements[slot]);
+            out.writeInt(left(slot));
+            out.writeInt(right(slot));
+        }
+    }
+
+    /**
+     * Restores the tree from a stream written by writeObject.
+     *
+     * @param in the stream to read from
+     * @throws IOException            if the stream cannot be read
+     * @throws ClassNotFoundException if a class in the stream cannot be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int count = in.readInt();
+        allocate(Math.max(count, DEFAULT_CAPACITY));
+        used = count;
+        root = in.readInt();
+        free = in.readInt();
+        for (int slot = 0; slot < count; slot++) {
+            elements[slot] = in.readObject();
+            setLeft(slot, in.readInt());
+            setRight(slot, in.readInt());
+        }
+    }
+
+    /* Iterator Implementations */
+
+    @Override
+    public Iterator<E> inorderIterator() {
+        return new InorderIterator();
+    }
+
+    @Override
+    public Iterator<E> preorderIterator() {
+        return new PreorderIterator();
+    }
+
+    @Override
+    public Iterator<E> postorderIterator() {
+        return new PostorderIterator();
+    }
+
+    // Growable stack of slots shared by the iterators
+    private static class SlotStack {
+        private int[] slots = new int[16];
+        private int top;
+
+        void push(int slot) {
+            if (top == slots.length) {
+                slots = Arrays.copyOf(slots, top * 2);
+            }
+            slots[top++] = slot;
+        }
+
+        int pop() {
+            return slots[--top];
+        }
+
+        int peek() {
+            return slots[top - 1];
+        }
+
+        boolean isEmpty() {
+            return top == 0;
+        }
+    }
+
+    // Inorder Iterator
+    private class InorderIterator implements Iterator<E> {
+        private final SlotStack stack = new SlotStack();
+
+        public InorderIterator() {
+            pushLeft(root);
+        }
+
+        private void pushLeft(int slot) {
+            while (slot != NIL) {
+                stack.push(slot);
+                slot = left(slot);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements in inorder iterator");
+            }
+            int slot = stack.pop();
+            pushLeft(right(slot));
+            return element(slot);
+        }
+    }
+
+    // Preorder Iterator
+    private class PreorderIterator implements Iterator<E> {
+        private final SlotStack stack = new SlotStack();
+
+        public PreorderIterator() {
+            if (root != NIL) {
+                stack.push(root);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements in preorder iterator");
+            }
+            int slot = stack.pop();
+            // Push right first so left is processed first
+            if (right(slot) != NIL) {
+                stack.push(right(slot));
+            }
+            if (left(slot) != NIL) {
+                stack.push(left(slot));
+            }
+            return element(slot);
+        }
+    }
+
+    // Postorder Iterator, which descends lazily from one element to the next
+    private class PostorderIterator implements Iterator<E> {
+        private final SlotStack stack = new SlotStack();
+
+        public PostorderIterator() {
+            descend(root);
+        }
+
+        // Pushes the path to the first post-order slot of a subtree
+        private void descend(int slot) {
+            while (slot != NIL) {
+                stack.push(slot);
+                slot = left(slot) != NIL ? left(slot) : right(slot);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements in postorder iterator");
+            }
+            int slot = stack.pop();
+            // Visit the parent's right subtree next if this was its left child
+            if (!stack.isEmpty() && left(stack.peek()) == slot) {
+                descend(right(stack.peek()));
+            }
+            return element(slot);
+        }
+    }
+}
@@ -2,31 +2,255 @@ package implementations;
 
 import utilities.BSTreeADT;
 import utilities.Iterator;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.NoSuchElementException;
-import java.util.Stack;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implementation of a Binary Search Tree (BST) that implements BSTreeADT
  * interface.
  * The tree maintains elements in sorted order and provides traversal methods.
+ * A tree constructed in balanced mode keeps itself height-balanced (AVL), so
+ * add, search, removeMin and removeMax stay O(log n) even for sorted input.
+ * Every node records the height and size of its subtree, which makes getHeight
+ * O(1) and supports rank and select queries in time proportional to the height.
+ *
+ * snapshot() returns a read-only view of the tree in O(1). After a snapshot the
+ * tree copies each shared node before changing it (path copying), so the view
+ * stays frozen while the tree keeps changing. Elements are shared rather than
+ * copied, so callers that change elements in place should fetch them through
+ * getOrAdd with a copier.
  *
  * @param <E> The type of elements stored in the BST, which must be comparable.
  */
 
 public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
+    // Matches the class shipped in WordTracker.jar so existing repositories still load
+    private static final long serialVersionUID = 7140683983283946746L;
     private BSTreeNode<E> root;
     private int size;
+    private final boolean balanced;
+    private final boolean readOnly;
+    // Version stamped on new nodes; nodes from older versions may be shared with snapshots
+    private int epoch;
+    // Scratch space recording the nodes visited by add and remove
+    private transient BSTreeNode<E>[] path;
+    // Operation counters for diagnostics, which are not saved with the tree.
+    // Searches may run on many threads at once over a snapshot, so they are
+    // counted in striped adders; adds only run on the thread that writes.
+    private transient LongAdder searches = new LongAdder();
+    private transient LongAdder searchComparisons = new LongAdder();
+    private transient long adds;
+    private transient long inserts;
+    private transient long addComparisons;
 
     // Default constructor initializes an empty BST
     public BSTree() {
-        root = null;
-        size = 0;
+        this(false);
     }
 
     // Parameterized constructor initializes the BST with a single element
     public BSTree(E element) {
         root = new BSTreeNode<>(element);
         size = 1;
+        balanced = false;
+        readOnly = false;
+    }
+
+    // Parameterized constructor initializes an empty BST, self-balancing if requested
+    public BSTree(boolean balanced) {
+        root = null;
+        size = 0;
+        this.balanced = balanced;
+        readOnly = false;
+    }
+
+    // Private constructor creating a read-only view that shares the nodes of a tree
+    private BSTree(BSTree<E> source) {
+        root = source.root;
+        size = source.size;
+        balanced = source.balanced;
+        readOnly = true;
+        epoch = source.epoch;
+    }
+
+    /**
+     * Builds an unbalanced-mode BST from elements supplied in ascending order.
+     * 
+     * @param <E>    the type of elements stored in the BST
+     * @param sorted an iterator over the elements in ascending order
+     * @return a height-balanced tree holding the elements
+     * @throws NullPointerException     if the iterator or any element is null
+     * @throws IllegalArgumentException if the elements are not in ascending order
+     * @see #fromSorted(Iterator, boolean)
+     */
+    public static <E extends Comparable<? super E>> BSTree<E> fromSorted(Iterator<E> sorted)
+            throws NullPointerException, IllegalArgumentException {
+        return fromSorted(sorted, false);
+    }
+
+    /**
+     * Builds a BST from elements supplied in ascending order in O(n) time. The
+     * result is perfectly height-balanced whichever mode is chosen. As with add,
+     * an element equal to the one before it is a duplicate and is left out.
+     * 
+     * @param <E>      the type of elements stored in the BST
+     * @param sorted   an iterator over the elements in ascending order
+     * @param balanced true to build the tree in self-balancing mode
+     * @return a height-balanced tree holding the elements
+     * @throws NullPointerException     if the iterator or any element is null
+     * @throws IllegalArgumentException if the elements are not in ascending order
+     */
+    public static <E extends Comparable<? super E>> BSTree<E> fromSorted(Iterator<E> sorted, boolean balanced)
+            throws NullPointerException, IllegalArgumentException {
+        if (sorted == null) {
+            throw new NullPointerException("The iterator cannot be null.");
+        }
+        ArrayList<E> elements = new ArrayList<>();
+        while (sorted.hasNext()) {
+            appendSorted(elements, sorted.next());
+        }
+        return build(elements, balanced);
+    }
+
+    /**
+     * Builds an unbalanced-mode BST from an array in ascending order.
+     * 
+     * @param <E>    the type of elements stored in the BST
+     * @param sorted the elements in ascending order
+     * @return a height-balanced tree holding the elements
+     * @throws NullPointerException     if the array or any element is null
+     * @throws IllegalArgumentException if the elements are not in ascending order
+     * @see #fromSorted(Iterator, boolean)
+     */
+    public static <E extends Comparable<? super E>> BSTree<E> fromSorted(E[] sorted)
+            throws NullPointerException, IllegalArgumentException {
+        return fromSorted(sorted, false);
+    }
+
+    /**
+     * Builds a BST from an array in ascending order in O(n) time.
+     * 
+     * @param <E>      the type of elements stored in the BST
+     * @param sorted   the elements in ascending order
+     * @param balanced true to build the tree in self-balancing mode
+     * @return a height-balanced tree holding the elements
+     * @throws NullPointerException     if the array or any element is null
+     * @throws IllegalArgumentException if the elements are not in ascending order
+     * @see #fromSorted(Iterator, boolean)
+     */
+    public static <E extends Comparable<? super E>> BSTree<E> fromSorted(E[] sorted, boolean balanced)
+            throws NullPointerException, IllegalArgumentException {
+        if (sorted == null) {
+            throw new NullPointerException("The array cannot be null.");
+        }
+        ArrayList<E> elements = new ArrayList<>(sorted.length);
+        for (E element : sorted) {
+            appendSorted(elements, element);
+        }
+        return build(elements, balanced);
+    }
+
+    /**
+     * Merges two trees into a new one in O(n + m) time by walking both in order
+     * and bulk loading the result. Elements found in both trees are replaced by
+     * the result of the combiner, which must compare equal to them. The result
+     * is perfectly height-balanced and takes the mode of the first tree. Neither
+     * input tree is changed, though the result shares their elements.
+     * 
+     * @param <E>      the type of elements stored in the trees
+     * @param first    the first tree
+     * @param second   the second tree
+     * @param combiner combines the element of the first tree with the equal
+     *                 element of the second tree
+     * @return a new tree holding the elements of both trees
+     * @throws NullPointerException if a tree or the combiner is null, or the
+     *                              combiner returns null
+     */
+    public static <E extends Comparable<? super E>> BSTree<E> merge(BSTree<E> first, BSTree<E> second,
+            BinaryOperator<E> combiner) throws NullPointerException {
+        if (first == null || second == null || combiner == null) {
+            throw new NullPointerException("The trees and combiner cannot be null.");
+        }
+        ArrayList<E> elements = new ArrayList<>(first.size() + second.size());
+        Iterator<E> left = first.inorderIterator();
+        Iterator<E> right = second.inorderIterator();
+        E a = left.hasNext() ? left.next() : null;
+        E b = right.hasNext() ? right.next() : null;
+        while (a != null && b != null) {
+            int comparison = a.compareTo(b);
+            if (comparison < 0) {
+                elements.add(a);
+                a = left.hasNext() ? left.next() : null;
+            } else if (comparison > 0) {
+                elements.add(b);
+                b = right.hasNext() ? right.next() : null;
+            } else {
+                E combined = combiner.apply(a, b);
+                if (combined == null) {
+                    throw new NullPointerException("The combined entry cannot be null.");
+                }
+                elements.add(combined);
+                a = left.hasNext() ? left.next() : null;
+                b = right.hasNext() ? right.next() : null;
+            }
+        }
+        for (; a != null; a = left.hasNext() ? left.next() : null) {
+            elements.add(a);
+        }
+        for (; b != null; b = right.hasNext() ? right.next() : null) {
+            elements.add(b);
+        }
+        return build(elements, first.balanced);
+    }
+
+    /**
+     * Returns a read-only view of the BST as it is now, in O(1) time. Later
+     * changes to this tree copy the nodes they touch instead of changing them,
+     * so the view never changes and can be read by other threads while this
+     * tree keeps being written. The snapshot must be taken on the thread that
+     * writes this tree, and handed to readers through a thread-safe channel.
+     * 
+     * @return a read-only view of the tree
+     */
+    public BSTree<E> snapshot() {
+        if (readOnly) {
+            return this;
+        }
+        BSTree<E> view = new BSTree<>(this);
+        epoch++;
+        return view;
+    }
+
+    /**
+     * Checks if the BST is a read-only snapshot.
+     * 
+     * @return true if the tree was returned by snapshot, false otherwise
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Checks if the BST keeps itself height-balanced.
+     * 
+     * @return true if the tree was constructed in balanced mode, false otherwise
+     */
+    public boolean isBalanced() {
+        return balanced;
     }
 
     /* Interface Implementation */
@@ -52,20 +276,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
      */
     @Override
     public int getHeight() {
-        return getHeight(root);
-    }
-
-    /**
-     * Helper method to calculate the height of the tree recursively.
-     * 
-     * @param node the current node
-     * @return the height of the subtree rooted at the given node
-     */
-    private int getHeight(BSTreeNode<E> node) {
-        if (node == null) {
-            return 0;
-        }
-        return 1 + Math.max(getHeight(node.getLeft()), getHeight(node.getRight()));
+        return height(root);
     }
 
     /**
@@ -93,6 +304,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
      */
     @Override
     public void clear() {
+        checkWritable();
         root = null;
         size = 0;
     }
@@ -125,29 +337,19 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
         if (entry == null) {
             throw new NullPointerException("The entry cannot be null.");
         }
-        return search(root, entry);
-    }
-
-    /**
-     * Helper method to search for an element starting from a given node
-     * recursively.
-     * 
-     * @param node  the current node to search from
-     * @param entry the element to search for
-     * @return the node containing the element, or null if not found
-     */
-    private BSTreeNode<E> search(BSTreeNode<E> node, E entry) {
-        if (node == null) {
-            return null;
-        }
-        int comparison = entry.compareTo(node.getElement());
-        if (comparison == 0) {
-            return node;
-        } else if (comparison < 0) {
-            return search(node.getLeft(), entry);
-        } else {
-            return search(node.getRight(), entry);
+        int compared = 0;
+        BSTreeNode<E> node = root;
+        while (node != null) {
+            int comparison = entry.compareTo(node.getElement());
+            compared++;
+            if (comparison == 0) {
+                break;
+            }
+            node = comparison < 0 ? node.getLeft() : node.getRight();
         }
+        searches.increment();
+        searchComparisons.add(compared);
+        return node;
     }
 
     /**
@@ -159,45 +361,120 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
      */
     @Override
     public boolean add(E newEntry) throws NullPointerException {
-        if (newEntry == null) {
-            throw new NullPointerException("The new entry cannot be null.");
-        }
-        if (isEmpty()) {
-            root = new BSTreeNode<>(newEntry);
-            size++;
-            return true;
+        int oldSize = size;
+        getOrAdd(newEntry);
+        return size != oldSize;
+    }
+
+    /**
+     * Returns the node holding an element equal to the given one, adding the
+     * element first if the BST does not contain it yet. Only one root-to-leaf
+     * descent is made either way.
+     * 
+     * @param entry the element to find or add
+     * @return the node containing the resident element
+     * @throws NullPointerException if the entry is null
+     */
+    public BSTreeNode<E> getOrAdd(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException("The entry cannot be null.");
         }
-        return add(root, newEntry);
+        return getOrAdd(entry::compareTo, () -> entry);
     }
 
     /**
-     * Helper method to add a new element starting from a given node recursively.
+     * Returns the node holding the element matching a lookup key, creating and
+     * adding that element first if the BST does not contain it yet. The key is
+     * described by a probe that compares it against resident elements, so no
+     * element has to be built just to search, and the factory is only called on
+     * a miss. Only one root-to-leaf descent is made either way.
      * 
-     * @param node     the current node to add the element to
-     * @param newEntry the element to add
-     * @return true if the element was added, false if it already exists
+     * @param probe   compares the lookup key with an element, returning a negative
+     *                integer, zero, or a positive integer as the key is less than,
+     *                equal to, or greater than the element
+     * @param factory creates the element to add when the key is not found; the
+     *                element must compare equal to the key
+     * @return the node containing the resident element
+     * @throws NullPointerException if the probe or factory is null, or the
+     *                              factory returns null
      */
-    private boolean add(BSTreeNode<E> node, E newEntry) {
-        int comparison = newEntry.compareTo(node.getElement());
-        if (comparison == 0) {
-            return false;
-        } else if (comparison < 0) {
-            if (node.getLeft() == null) {
-                node.setLeft(new BSTreeNode<>(newEntry));
-                size++;
-                return true;
-            } else {
-                return add(node.getLeft(), newEntry);
+    public BSTreeNode<E> getOrAdd(ToIntFunction<? super E> probe, Supplier<? extends E> factory)
+            throws NullPointerException {
+        return getOrAdd(probe, factory, null);
+    }
+
+    /**
+     * Works like getOrAdd(probe, factory), and also makes a found element safe
+     * to change in place. If the element is still shared with a snapshot, the
+     * node is copied and given a copy of the element made by the copier, so the
+     * snapshot keeps the original.
+     * 
+     * @param probe   compares the lookup key with an element, returning a negative
+     *                integer, zero, or a positive integer as the key is less than,
+     *                equal to, or greater than the element
+     * @param factory creates the element to add when the key is not found; the
+     *                element must compare equal to the key
+     * @param copier  copies a resident element shared with a snapshot, or null to
+     *                leave found elements shared
+     * @return the node containing the resident element
+     * @throws NullPointerException if the probe or factory is null, or the
+     *                              factory or copier returns null
+     */
+    public BSTreeNode<E> getOrAdd(ToIntFunction<? super E> probe, Supplier<? extends E> factory,
+            UnaryOperator<E> copier) throws NullPointerException {
+        if (probe == null || factory == null) {
+            throw new NullPointerException("The probe and factory cannot be null.");
+        }
+        checkWritable();
+        BSTreeNode<E>[] path = path();
+        int depth = 0;
+        int comparison = 0;
+        BSTreeNode<E> node = root;
+        while (node != null) {
+            comparison = probe.applyAsInt(node.getElement());
+            if (comparison == 0) {
+                adds++;
+                addComparisons += depth + 1;
+                if (copier == null || node.getElementEpoch() == epoch) {
+                    clearPath(depth);
+                    return node;
+                }
+                E copy = copier.apply(node.getElement());
+                if (copy == null) {
+                    clearPath(depth);
+                    throw new NullPointerException("The copied entry cannot be null.");
+                }
+                path[depth] = node;
+                copyPath(depth + 1);
+                node = path[depth];
+                node.setElement(copy);
+                node.setElementEpoch(epoch);
+                clearPath(depth + 1);
+                return node;
             }
+            path[depth++] = node;
+            node = comparison < 0 ? node.getLeft() : node.getRight();
+        }
+        adds++;
+        inserts++;
+        addComparisons += depth;
+        E newEntry = factory.get();
+        if (newEntry == null) {
+            clearPath(depth);
+            throw new NullPointerException("The new entry cannot be null.");
+        }
+        BSTreeNode<E> added = newNode(newEntry);
+        copyPath(depth);
+        if (depth == 0) {
+            root = added;
+        } else if (comparison < 0) {
+            path[depth - 1].setLeft(added);
         } else {
-            if (node.getRight() == null) {
-                node.setRight(new BSTreeNode<>(newEntry));
-                size++;
-                return true;
-            } else {
-                return add(node.getRight(), newEntry);
-            }
+            path[depth - 1].setRight(added);
         }
+        size++;
+        updatePath(depth);
+        return added;
     }
 
     /**
@@ -208,33 +485,27 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
      */
     @Override
     public BSTreeNode<E> removeMin() {
+        checkWritable();
         if (isEmpty()) {
             return null;
         }
-        if (root.getLeft() == null) {
-            BSTreeNode<E> min = root;
-            root = root.getRight();
-            size--;
-            return min;
+        BSTreeNode<E>[] path = path();
+        int depth = 0;
+        BSTreeNode<E> min = root;
+        while (min.getLeft() != null) {
+            path[depth++] = min;
+            min = min.getLeft();
         }
-        return removeMin(root);
-    }
-
-    /**
-     * Helper method to remove the smallest element starting from a given node
-     * recursively.
-     * 
-     * @param node the current node to search for the smallest element
-     * @return the node containing the smallest element
-     */
-    private BSTreeNode<E> removeMin(BSTreeNode<E> node) {
-        if (node.getLeft().getLeft() == null) {
-            BSTreeNode<E> min = node.getLeft();
-            node.setLeft(node.getLeft().getRight());
-            size--;
-            return min;
+        copyPath(depth);
+        BSTreeNode<E> parent = depth == 0 ? null : path[depth - 1];
+        if (parent == null) {
+            root = min.getRight();
+        } else {
+            parent.setLeft(min.getRight());
         }
-        return removeMin(node.getLeft());
+        size--;
+        updatePath(depth);
+        return min;
     }
 
     /**
@@ -244,40 +515,738 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
      */
     @Override
     public BSTreeNode<E> removeMax() {
+        checkWritable();
         if (isEmpty()) {
             return null;
         }
-        if (root.getRight() == null) {
-            BSTreeNode<E> max = root;
-            root = root.getLeft();
-            size--;
-            return max;
+        BSTreeNode<E>[] path = path();
+        int depth = 0;
+        BSTreeNode<E> max = root;
+        while (max.getRight() != null) {
+            path[depth++] = max;
+            max = max.getRight();
+        }
+        copyPath(depth);
+        BSTreeNode<E> parent = depth == 0 ? null : path[depth - 1];
+        if (parent == null) {
+            root = max.getLeft();
+        } else {
+            parent.setRight(max.getLeft());
         }
-        return removeMax(root);
+        size--;
+        updatePath(depth);
+        return max;
     }
 
     /**
-     * Helper method to remove the largest element starting from a given node
-     * recursively.
+     * Counts the elements in the BST that are smaller than a given element.
      * 
-     * @param node the current node to search for the largest element
-     * @return the node containing the largest element
+     * @param entry the element to rank
+     * @return the number of elements smaller than the entry
+     * @throws NullPointerException if the entry is null
      */
-    private BSTreeNode<E> removeMax(BSTreeNode<E> node) {
-        if (node.getRight().getRight() == null) {
-            BSTreeNode<E> max = node.getRight();
-            node.setRight(node.getRight().getLeft());
-            size--;
-            return max;
+    public int rank(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException("The entry cannot be null.");
+        }
+        int rank = 0;
+        BSTreeNode<E> node = root;
+        while (node != null) {
+            int comparison = entry.compareTo(node.getElement());
+            if (comparison <= 0) {
+                node = node.getLeft();
+            } else {
+                rank += size(node.getLeft()) + 1;
+                node = node.getRight();
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the node holding the element at a given position of the natural
+     * ordering, so select(0) is the smallest element and select(size() - 1) the
+     * largest.
+     * 
+     * @param index the zero-based position of the element
+     * @return the node containing the element at that position
+     * @throws IndexOutOfBoundsException if the index is negative or not less than
+     *                                   the size of the tree
+     */
+    public BSTreeNode<E> select(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        BSTreeNode<E> node = root;
+        while (true) {
+            int leftSize = size(node.getLeft());
+            if (index == leftSize) {
+                return node;
+            }
+            if (index < leftSize) {
+                node = node.getLeft();
+            } else {
+                index -= leftSize + 1;
+                node = node.getRight();
+            }
         }
-        return removeMax(node.getRight());
+    }
+
+    /**
+     * Rebuilds the BST into a minimum-height shape in O(n) time and O(1) extra
+     * space with the Day-Stout-Warren algorithm. Right rotations first flatten
+     * the tree into a sorted vine of right children, then rounds of left
+     * rotations fold the vine back into a tree whose leaves all sit on the
+     * bottom two levels. Heights and sizes are set as each node is folded
+     * down, and finally along the right spine that is left. Snapshots are not
+     * affected, since shared nodes are copied before they are relinked.
+     * 
+     * @throws UnsupportedOperationException if the tree is a read-only snapshot
+     */
+    public void rebalance() throws UnsupportedOperationException {
+        checkWritable();
+        BSTreeNode<E> pseudo = new BSTreeNode<>(null);
+        pseudo.setRight(root);
+        toVine(pseudo);
+        int leaves = size + 1 - Integer.highestOneBit(size + 1);
+        compress(pseudo, leaves);
+        for (int count = size - leaves; count > 1; count >>>= 1) {
+            compress(pseudo, count >>> 1);
+        }
+        root = pseudo.getRight();
+        updateSpine();
+    }
+
+    /**
+     * Rebalances the BST if it has grown taller than a factor times the height
+     * of a perfectly balanced tree of the same size. The check takes O(1) time,
+     * so it is cheap to make before the tree is saved or scanned.
+     * 
+     * @param factor how many times taller than balanced the tree may grow; at
+     *               least 1
+     * @return true if the tree was rebalanced, false otherwise
+     * @throws IllegalArgumentException      if the factor is less than 1
+     * @throws UnsupportedOperationException if the tree is a read-only snapshot
+     */
+    public boolean rebalanceIfTaller(double factor)
+            throws IllegalArgumentException, UnsupportedOperationException {
+        if (!(factor >= 1)) {
+            throw new IllegalArgumentException("Factor must be at least 1: " + factor);
+        }
+        checkWritable();
+        double balancedHeight = Math.log(size + 1.0) / Math.log(2);
+        if (height(root) <= factor * Math.ceil(balancedHeight)) {
+            return false;
+        }
+        rebalance();
+        return true;
+    }
+
+    /* Diagnostics */
+
+    /**
+     * Counts the nodes at each depth of the BST, where the root is at depth 0.
+     * This walks the whole tree once, without recursion.
+     * 
+     * @return an array as long as the height of the tree, holding the number of
+     *         nodes at each depth
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public int[] depthHistogram() {
+        int height = height(root);
+        int[] histogram = new int[height];
+        if (root == null) {
+            return histogram;
+        }
+        // A pre-order walk holds at most one pending node per level, plus one
+        BSTreeNode<E>[] nodes = (BSTreeNode<E>[]) new BSTreeNode[height + 1];
+        int[] depths = new int[height + 1];
+        int top = 0;
+        nodes[top] = root;
+        depths[top++] = 0;
+        while (top > 0) {
+            BSTreeNode<E> node = nodes[--top];
+            int depth = depths[top];
+            histogram[depth]++;
+            if (node.getRight() != null) {
+                nodes[top] = node.getRight();
+                depths[top++] = depth + 1;
+            }
+            if (node.getLeft() != null) {
+                nodes[top] = node.getLeft();
+                depths[top++] = depth + 1;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Returns the average depth of the nodes, where the root is at depth 0. A
+     * successful search makes one comparison more than the depth of the node it
+     * finds. This walks the whole tree once.
+     * 
+     * @return the average node depth, or 0 if the tree is empty
+     */
+    public double getAverageDepth() {
+        if (size == 0) {
+            return 0;
+        }
+        int[] histogram = depthHistogram();
+        long total = 0;
+        for (int depth = 0; depth < histogram.length; depth++) {
+            total += (long) depth * histogram[depth];
+        }
+        return (double) total / size;
+    }
+
+    /**
+     * Returns the height of the BST divided by log2(size + 1), the height of a
+     * perfectly balanced tree of the same size. This takes O(1) time.
+     * 
+     * @return 1 for a perfectly balanced tree and more for taller trees, or 0
+     *         if the tree is empty
+     */
+    public double getHeightRatio() {
+        if (size == 0) {
+            return 0;
+        }
+        return height(root) / (Math.log(size + 1.0) / Math.log(2));
+    }
+
+    /**
+     * Returns how many times search or contains has been called since the tree
+     * was created or the counters were reset. Searches made on several threads
+     * at once are all counted.
+     * 
+     * @return the number of searches
+     */
+    public long getSearchCount() {
+        return searches.sum();
+    }
+
+    /**
+     * Returns how many element comparisons all counted searches made.
+     * 
+     * @return the number of comparisons made by searches
+     */
+    public long getSearchComparisons() {
+        return searchComparisons.sum();
+    }
+
+    /**
+     * Returns how many times add or getOrAdd has been called since the tree was
+     * created or the counters were reset, whether or not an element was added.
+     * 
+     * @return the number of adds
+     */
+    public long getAddCount() {
+        return adds;
+    }
+
+    /**
+     * Returns how many of the counted adds added an element, rather than
+     * finding an equal one already in the tree.
+     * 
+     * @return the number of elements added
+     */
+    public long getInsertCount() {
+        return inserts;
+    }
+
+    /**
+     * Returns how many element comparisons all counted adds made.
+     * 
+     * @return the number of comparisons made by adds
+     */
+    public long getAddComparisons() {
+        return addComparisons;
+    }
+
+    /**
+     * Sets the search and add counters back to zero.
+     */
+    public void resetCounters() {
+        searches.reset();
+        searchComparisons.reset();
+        adds = 0;
+        inserts = 0;
+        addComparisons = 0;
+    }
+
+    /* Bulk Loading Helpers */
+
+    /**
+     * Appends an element to a list being collected for a bulk load, checking
+     * that it does not sort before the last element and skipping duplicates.
+     * 
+     * @param elements the elements collected so far
+     * @param element  the next element
+     */
+    private static <E extends Comparable<? super E>> void appendSorted(ArrayList<E> elements, E element) {
+        if (element == null) {
+            throw new NullPointerException("The new entry cannot be null.");
+        }
+        if (!elements.isEmpty()) {
+            int comparison = element.compareTo(elements.get(elements.size() - 1));
+            if (comparison < 0) {
+                throw new IllegalArgumentException("Elements are not in ascending order at index "
+                        + elements.size() + ".");
+            }
+            if (comparison == 0) {
+                return;
+            }
+        }
+        elements.add(element);
+    }
+
+    /**
+     * Creates a tree whose root is the middle element of a sorted list. The
+     * elements may still be shared with other trees and their snapshots, so
+     * the tree starts one version ahead of its nodes, and the first change
+     * to each node or its element copies it.
+     * 
+     * @param elements the distinct elements in ascending order
+     * @param balanced true to create the tree in self-balancing mode
+     * @return the new tree
+     */
+    private static <E extends Comparable<? super E>> BSTree<E> build(ArrayList<E> elements, boolean balanced) {
+        BSTree<E> tree = new BSTree<>(balanced);
+        tree.root = build(elements, 0, elements.size());
+        tree.size = elements.size();
+        tree.epoch = 1;
+        return tree;
+    }
+
+    /**
+     * Helper method to build a perfectly balanced subtree from a range of a
+     * sorted list recursively. The recursion is only as deep as the result.
+     * 
+     * @param elements the distinct elements in ascending order
+     * @param low      the first index of the range
+     * @param high     one past the last index of the range
+     * @return the root of the subtree, or null for an empty range
+     */
+    private static <E> BSTreeNode<E> build(ArrayList<E> elements, int low, int high) {
+        if (low >= high) {
+            return null;
+        }
+        int middle = (low + high) >>> 1;
+        BSTreeNode<E> node = new BSTreeNode<>(elements.get(middle));
+        BSTreeNode<E> left = build(elements, low, middle);
+        BSTreeNode<E> right = build(elements, middle + 1, high);
+        node.setLeft(left);
+        node.setRight(right);
+        node.setHeight(1 + Math.max(left == null ? 0 : left.getHeight(), right == null ? 0 : right.getHeight()));
+        node.setSize(high - low);
+        return node;
+    }
+
+    /* Day-Stout-Warren Helpers */
+
+    /**
+     * Flattens the tree below a pseudo-root into a vine, a chain of right
+     * children in ascending order, by rotating every left child up. Each node
+     * is made writable as the vine reaches it.
+     * 
+     * @param pseudo a node whose right child is the root of the tree
+     */
+    private void toVine(BSTreeNode<E> pseudo) {
+        BSTreeNode<E> tail = pseudo;
+        BSTreeNode<E> rest = tail.getRight();
+        while (rest != null) {
+            rest = writable(rest);
+            tail.setRight(rest);
+            if (rest.getLeft() == null) {
+                tail = rest;
+                rest = rest.getRight();
+            } else {
+                BSTreeNode<E> lifted = writable(rest.getLeft());
+                rest.setLeft(lifted.getRight());
+                lifted.setRight(rest);
+                rest = lifted;
+            }
+        }
+    }
+
+    /**
+     * Rotates every other node of the vine below a pseudo-root to the left, a
+     * given number of times from the top, halving that part of the vine. A
+     * rotated node leaves the vine for good, with both its subtrees already
+     * folded, so its height and size are final and are set here.
+     * 
+     * @param pseudo a node whose right child is the top of the vine
+     * @param count  the number of left rotations
+     */
+    private void compress(BSTreeNode<E> pseudo, int count) {
+        BSTreeNode<E> scanner = pseudo;
+        for (int i = 0; i < count; i++) {
+            BSTreeNode<E> child = scanner.getRight();
+            scanner.setRight(child.getRight());
+            scanner = scanner.getRight();
+            child.setRight(scanner.getLeft());
+            scanner.setLeft(child);
+            update(child);
+        }
+    }
+
+    /**
+     * Sets the height and size of the nodes left on the vine after the last
+     * fold, which form the right spine of the tree, from the bottom up. Each is
+     * reached by walking down from the root, which takes O(log^2 n) time on the
+     * folded tree but no extra space.
+     */
+    private void updateSpine() {
+        int length = 0;
+        for (BSTreeNode<E> node = root; node != null; node = node.getRight()) {
+            length++;
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            BSTreeNode<E> node = root;
+            for (int j = 0; j < i; j++) {
+                node = node.getRight();
+            }
+            update(node);
+        }
+    }
+
+    /**
+     * Recomputes the height and size of every node in a single post-order pass,
+     * without recursion.
+     */
+    private void updateAll() {
+        ArrayDeque<BSTreeNode<E>> stack = new ArrayDeque<>();
+        BSTreeNode<E> node = root;
+        BSTreeNode<E> last = null;
+        while (node != null || !stack.isEmpty()) {
+            if (node != null) {
+                stack.push(node);
+                node = node.getLeft();
+                continue;
+            }
+            BSTreeNode<E> top = stack.peek();
+            if (top.getRight() != null && top.getRight() != last) {
+                node = top.getRight();
+            } else {
+                update(top);
+                last = stack.pop();
+            }
+        }
+    }
+
+    /* Path and Balancing (AVL) Helpers */
+
+    /**
+     * Returns scratch space large enough to hold every node on a root-to-leaf
+     * path of the tree, plus one for a node about to be added.
+     * 
+     * @return the path array
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private BSTreeNode<E>[] path() {
+        int needed = height(root) + 1;
+        if (path == null || path.length < needed) {
+            path = (BSTreeNode<E>[]) new BSTreeNode[Math.max(needed, 16)];
+        }
+        return path;
+    }
+
+    // Drops the references held in the path scratch space
+    private void clearPath(int depth) {
+        if (path != null) {
+            Arrays.fill(path, 0, depth, null);
+        }
+    }
+
+    // Throws if the tree is a read-only snapshot
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Snapshots are read-only.");
+        }
+    }
+
+    // Creates a node stamped with the current version of the tree
+    private BSTreeNode<E> newNode(E element) {
+        BSTreeNode<E> node = new BSTreeNode<>(element);
+        node.setEpoch(epoch);
+        node.setElementEpoch(epoch);
+        return node;
+    }
+
+    /**
+     * Returns a node that may be changed without affecting any snapshot: the
+     * node itself if it was created since the last snapshot, otherwise a copy.
+     * A copy still shares its element, so it keeps the element's version.
+     * 
+     * @param node the node about to be changed
+     * @return the node to change in its place
+     */
+    private BSTreeNode<E> writable(BSTreeNode<E> node) {
+        if (node.getEpoch() == epoch) {
+            return node;
+        }
+        BSTreeNode<E> copy = newNode(node.getElement());
+        copy.setLeft(node.getLeft());
+        copy.setRight(node.getRight());
+        copy.setHeight(node.getHeight());
+        copy.setSize(node.getSize());
+        copy.setElementEpoch(node.getElementEpoch());
+        return copy;
+    }
+
+    /**
+     * Replaces every node on the recorded path that may be shared with a
+     * snapshot by a copy, linking each copy into its parent or the root.
+     * 
+     * @param depth the number of nodes recorded on the path
+     */
+    private void copyPath(int depth) {
+        for (int i = 0; i < depth; i++) {
+            BSTreeNode<E> node = path[i];
+            BSTreeNode<E> copy = writable(node);
+            if (copy == node) {
+                continue;
+            }
+            path[i] = copy;
+            if (i == 0) {
+                root = copy;
+            } else if (path[i - 1].getLeft() == node) {
+                path[i - 1].setLeft(copy);
+            } else {
+                path[i - 1].setRight(copy);
+            }
+        }
+    }
+
+    /**
+     * Refreshes the height and size of every node on the recorded path, from the
+     * deepest node back up to the root. In balanced mode this also restores the
+     * AVL property, linking any rotated subtree into its parent.
+     * 
+     * @param depth the number of nodes recorded on the path
+     */
+    private void updatePath(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            BSTreeNode<E> node = path[i];
+            if (!balanced) {
+                update(node);
+                continue;
+            }
+            BSTreeNode<E> replacement = rebalance(node);
+            if (replacement != node) {
+                if (i == 0) {
+                    root = replacement;
+                } else if (path[i - 1].getLeft() == node) {
+                    path[i - 1].setLeft(replacement);
+                } else {
+                    path[i - 1].setRight(replacement);
+                }
+            }
+        }
+        clearPath(depth);
+    }
+
+    /**
+     * Updates the height and size of a node and rotates it if its children differ
+     * in height by more than one.
+     * 
+     * @param node the node to rebalance
+     * @return the node now at the position of the given node
+     */
+    private BSTreeNode<E> rebalance(BSTreeNode<E> node) {
+        update(node);
+        int balance = height(node.getLeft()) - height(node.getRight());
+        if (balance > 1) {
+            if (height(node.getLeft().getLeft()) < height(node.getLeft().getRight())) {
+                node.setLeft(rotateLeft(node.getLeft()));
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.getRight().getRight()) < height(node.getRight().getLeft())) {
+                node.setRight(rotateRight(node.getRight()));
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    /**
+     * Rotates a node down to the left, lifting its right child into its place.
+     * 
+     * @param node the node to rotate
+     * @return the node now at the position of the given node
+     */
+    private BSTreeNode<E> rotateLeft(BSTreeNode<E> node) {
+        node = writable(node);
+        BSTreeNode<E> pivot = writable(node.getRight());
+        node.setRight(pivot.getLeft());
+        pivot.setLeft(node);
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    /**
+     * Rotates a node down to the right, lifting its left child into its place.
+     * 
+     * @param node the node to rotate
+     * @return the node now at the position of the given node
+     */
+    private BSTreeNode<E> rotateRight(BSTreeNode<E> node) {
+        node = writable(node);
+        BSTreeNode<E> pivot = writable(node.getLeft());
+        node.setLeft(pivot.getRight());
+        pivot.setRight(node);
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    // Recomputes the stored height and size of a node from its children
+    private void update(BSTreeNode<E> node) {
+        node.setHeight(1 + Math.max(height(node.getLeft()), height(node.getRight())));
+        node.setSize(1 + size(node.getLeft()) + size(node.getRight()));
+    }
+
+    // Returns the stored height of a node, zero for an empty subtree
+    private int height(BSTreeNode<E> node) {
+        return node == null ? 0 : node.getHeight();
+    }
+
+    // Returns the stored size of a node, zero for an empty subtree
+    private int size(BSTreeNode<E> node) {
+        return node == null ? 0 : node.getSize();
+    }
+
+    /**
+     * Restores the tree from a stream, with its counters at zero. Trees saved
+     * before nodes recorded their height and size have those fields recomputed
+     * in a single post-order pass.
+     * 
+     * @param in the stream to read from
+     * @throws IOException            if the stream cannot be read
+     * @throws ClassNotFoundException if a class in the stream cannot be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        searches = new LongAdder();
+        searchComparisons = new LongAdder();
+        if (root == null || root.getSize() != 0) {
+            return;
+        }
+        updateAll();
     }
 
     /* Iterator Implementations */
 
     @Override
     public Iterator<E> inorderIterator() {
-        return new InorderIterator();
+        return new InorderIterator(null, false, null, false);
+    }
+
+    /**
+     * Generates an in-order iteration over the elements that lie between two
+     * bounds. The iterator seeks to the lower bound in O(log n) for a balanced
+     * tree and stops as soon as it passes the upper bound.
+     * 
+     * @param from          the lower bound, or null for no lower bound
+     * @param fromInclusive true if an element equal to the lower bound is included
+     * @param to            the upper bound, or null for no upper bound
+     * @param toInclusive   true if an element equal to the upper bound is included
+     * @return an iterator over the elements in range, in their natural order
+     */
+    public Iterator<E> inorderIterator(E from, boolean fromInclusive, E to, boolean toInclusive) {
+        return new InorderIterator(from, fromInclusive, to, toInclusive);
+    }
+
+    /**
+     * Generates an in-order iteration over the elements from a lower bound up to
+     * the largest element.
+     * 
+     * @param from      the lower bound
+     * @param inclusive true if an element equal to the bound is included
+     * @return an iterator over the elements in range, in their natural order
+     * @throws NullPointerException if the bound is null
+     */
+    public Iterator<E> tailIterator(E from, boolean inclusive) throws NullPointerException {
+        if (from == null) {
+            throw new NullPointerException("The bound cannot be null.");
+        }
+        return new InorderIterator(from, inclusive, null, false);
+    }
+
+    /**
+     * Generates an in-order iteration over the elements from the smallest element
+     * up to an upper bound.
+     * 
+     * @param to        the upper bound
+     * @param inclusive true if an element equal to the bound is included
+     * @return an iterator over the elements in range, in their natural order
+     * @throws NullPointerException if the bound is null
+     */
+    public Iterator<E> headIterator(E to, boolean inclusive) throws NullPointerException {
+        if (to == null) {
+            throw new NullPointerException("The bound cannot be null.");
+        }
+        return new InorderIterator(null, false, to, inclusive);
+    }
+
+    /**
+     * Performs an action on every element in their natural order. This bulk scan
+     * creates no iterator and allocates only one stack sized from the height.
+     * It leaves the tree untouched, so snapshots that share its nodes can be
+     * read at the same time.
+     * 
+     * @param action the action to perform on each element
+     * @throws NullPointerException if the action is null
+     */
+    public void forEachInorder(Consumer<? super E> action) throws NullPointerException {
+        if (action == null) {
+            throw new NullPointerException("The action cannot be null.");
+        }
+        NodeStack<E> stack = new NodeStack<>(height(root));
+        BSTreeNode<E> node = root;
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                stack.push(node);
+                node = node.getLeft();
+            }
+            node = stack.pop();
+            action.accept(node.getElement());
+            node = node.getRight();
+        }
+    }
+
+    /**
+     * Creates a spliterator over the elements in their natural order. It splits
+     * on subtrees using the stored subtree sizes, so splits are exact and, for a
+     * balanced tree, close to even.
+     * 
+     * @return a sized, sorted spliterator over the elements
+     */
+    public Spliterator<E> spliterator() {
+        return new NodeSpliterator<>(null, root, size, readOnly);
+    }
+
+    /**
+     * Returns a sequential stream over the elements in their natural order.
+     * 
+     * @return a stream of the elements
+     */
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream over the elements. The stream is ordered, so
+     * ordered operations such as collect still see the natural order. The tree
+     * must not be changed while the stream runs; a snapshot may be streamed
+     * while the live tree keeps changing.
+     * 
+     * @return a parallel stream of the elements
+     */
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
     }
 
     @Override
@@ -290,12 +1259,26 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
         return new PostorderIterator();
     }
 
-    // Inorder Iterator
+    // Inorder Iterator, optionally limited to a range of elements
     private class InorderIterator implements Iterator<E> {
-        private Stack<BSTreeNode<E>> stack = new Stack<>();
+        private final NodeStack<E> stack = new NodeStack<>(height(root));
+        private final E to;
+        private final boolean toInclusive;
 
-        public InorderIterator() {
-            pushLeft(root);
+        public InorderIterator(E from, boolean fromInclusive, E to, boolean toInclusive) {
+            this.to = to;
+            this.toInclusive = toInclusive;
+            // Push only the nodes on the search path for the lower bound that are in range
+            BSTreeNode<E> node = root;
+            while (node != null) {
+                int comparison = from == null ? -1 : from.compareTo(node.getElement());
+                if (comparison < 0 || (comparison == 0 && fromInclusive)) {
+                    stack.push(node);
+                    node = node.getLeft();
+                } else {
+                    node = node.getRight();
+                }
+            }
         }
 
         private void pushLeft(BSTreeNode<E> node) {
@@ -307,6 +1290,12 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
 
         @Override
         public boolean hasNext() {
+            if (!stack.isEmpty() && to != null) {
+                int comparison = stack.peek().getElement().compareTo(to);
+                if (comparison > 0 || (comparison == 0 && !toInclusive)) {
+                    stack.clear();
+                }
+            }
             return !stack.isEmpty();
         }
 
@@ -326,7 +1315,8 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
 
     // Preorder Iterator
     private class PreorderIterator implements Iterator<E> {
-        private Stack<BSTreeNode<E>> stack = new Stack<>();
+        // Holds at most one pending right child per level, plus the next node
+        private final NodeStack<E> stack = new NodeStack<>(height(root) + 1);
 
         public PreorderIterator() {
             if (root != null) {
@@ -357,30 +1347,25 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
         }
     }
 
-    // Postorder Iterator
+    // Postorder Iterator, which descends lazily from one element to the next
     private class PostorderIterator implements Iterator<E> {
-        private Stack<BSTreeNode<E>> stack1 = new Stack<>();
-        private Stack<BSTreeNode<E>> stack2 = new Stack<>();
+        private final NodeStack<E> stack = new NodeStack<>(height(root));
 
         public PostorderIterator() {
-            if (root != null) {
-                stack1.push(root);
-                while (!stack1.isEmpty()) {
-                    BSTreeNode<E> node = stack1.pop();
-                    stack2.push(node);
-                    if (node.getLeft() != null) {
-                        stack1.push(node.getLeft());
-                    }
-                    if (node.getRight() != null) {
-                        stack1.push(node.getRight());
-                    }
-                }
+            descend(root);
+        }
+
+        // Pushes the path to the first post-order node of a subtree
+        private void descend(BSTreeNode<E> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.getLeft() != null ? node.getLeft() : node.getRight();
             }
         }
 
         @Override
         public boolean hasNext() {
-            return !stack2.isEmpty();
+            return !stack.isEmpty();
         }
 
         @Override
@@ -388,8 +1373,145 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
             if (!hasNext()) {
                 throw new NoSuchElementException("No more elements in postorder iterator");
             }
-            return stack2.pop().getElement();
+            BSTreeNode<E> node = stack.pop();
+            // Visit the parent's right subtree next if this was its left child
+            if (!stack.isEmpty() && stack.peek().getLeft() == node) {
+                descend(stack.peek().getRight());
+            }
+            return node.getElement();
         }
     }
 
+    /**
+     * Spliterator over an optional single node followed by a whole subtree, in
+     * that order. Splitting hands the node and the subtree's left part to a new
+     * spliterator and keeps the subtree's root and right part, which preserves
+     * the in-order sequence. Once traversal starts it no longer splits.
+     */
+    private static class NodeSpliterator<E> implements Spliterator<E> {
+        private BSTreeNode<E> head;
+        private BSTreeNode<E> subtree;
+        private NodeStack<E> stack;
+        private long remaining;
+        private final boolean immutable;
+
+        NodeSpliterator(BSTreeNode<E> head, BSTreeNode<E> subtree, long remaining, boolean immutable) {
+            this.head = head;
+            this.subtree = subtree;
+            this.remaining = remaining;
+            this.immutable = immutable;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null) {
+                throw new NullPointerException("The action cannot be null.");
+            }
+            if (head != null) {
+                BSTreeNode<E> node = head;
+                head = null;
+                remaining--;
+                action.accept(node.getElement());
+                return true;
+            }
+            if (stack == null) {
+                stack = new NodeStack<>(subtree == null ? 0 : subtree.getHeight());
+                pushLeft(subtree);
+                subtree = null;
+            }
+            if (stack.isEmpty()) {
+                return false;
+            }
+            BSTreeNode<E> node = stack.pop();
+            pushLeft(node.getRight());
+            remaining--;
+            action.accept(node.getElement());
+            return true;
+        }
+
+        private void pushLeft(BSTreeNode<E> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.getLeft();
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            while (stack == null && subtree != null) {
+                BSTreeNode<E> left = subtree.getLeft();
+                long prefixSize = (head == null ? 0 : 1) + (left == null ? 0 : left.getSize());
+                if (prefixSize == 0) {
+                    // Nothing before the subtree root; move past it and try again
+                    head = subtree;
+                    subtree = subtree.getRight();
+                    continue;
+                }
+                NodeSpliterator<E> prefix = new NodeSpliterator<>(head, left, prefixSize, immutable);
+                head = subtree;
+                subtree = subtree.getRight();
+                remaining -= prefixSize;
+                return prefix;
+            }
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = ORDERED | SORTED | DISTINCT | SIZED | SUBSIZED | NONNULL;
+            return immutable ? characteristics | IMMUTABLE : characteristics;
+        }
+
+        @Override
+        public Comparator<? super E> getComparator() {
+            // Sorted by the natural ordering of the elements
+            return null;
+        }
+    }
+
+    /**
+     * Unsynchronized, array-backed stack of nodes for the traversals. It is
+     * sized from the tree height up front, and only grows if the tree is
+     * changed during a traversal.
+     */
+    private static class NodeStack<E> {
+        private BSTreeNode<E>[] nodes;
+        private int top;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        NodeStack(int capacity) {
+            nodes = (BSTreeNode<E>[]) new BSTreeNode[Math.max(capacity, 1)];
+        }
+
+        void push(BSTreeNode<E> node) {
+            if (top == nodes.length) {
+                nodes = Arrays.copyOf(nodes, top * 2);
+            }
+            nodes[top++] = node;
+        }
+
+        BSTreeNode<E> pop() {
+            BSTreeNode<E> node = nodes[--top];
+            nodes[top] = null;
+            return node;
+        }
+
+        BSTreeNode<E> peek() {
+            return nodes[top - 1];
+        }
+
+        boolean isEmpty() {
+            return top == 0;
+        }
+
+        void clear() {
+            Arrays.fill(nodes, 0, top, null);
+            top = 0;
+        }
+    }
 }
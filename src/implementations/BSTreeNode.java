@@ -5,6 +5,10 @@ import java.io.Serializable;
 /**
  * Represents a node in a Binary Search Tree (BST).
  * Each node contains an element of generic type E, and references to its left and right children.
+ * Each node also records the height and the number of elements of the subtree rooted at it,
+ * and the version of its tree that created it, which tells copy-on-write trees whether the
+ * node may be shared with a snapshot. A copied node keeps its element, so the version that
+ * put the element in the node is recorded separately, to tell whether the element is shared.
  */
 
 public class BSTreeNode<E> implements Serializable
@@ -13,6 +17,10 @@ public class BSTreeNode<E> implements Serializable
     private E element;
     private BSTreeNode<E> left;
     private BSTreeNode<E> right;
+    private int height;
+    private int size;
+    private int epoch;
+    private int elementEpoch;
 
     // Parameterized constructor to create a node with a specific element
     public BSTreeNode(E element)
@@ -20,6 +28,8 @@ public class BSTreeNode<E> implements Serializable
         this.element = element;
         this.left = null;
         this.right = null;
+        this.height = 1;
+        this.size = 1;
     }
 
     // Getter
@@ -53,4 +63,48 @@ public class BSTreeNode<E> implements Serializable
     {
         this.right = right;
     }
+
+    // Getter and setter for the height of the subtree rooted at this node
+    public int getHeight()
+    {
+        return height;
+    }
+
+    public void setHeight(int height)
+    {
+        this.height = height;
+    }
+
+    // Getter and setter for the number of elements in the subtree rooted at this node
+    public int getSize()
+    {
+        return size;
+    }
+
+    public void setSize(int size)
+    {
+        this.size = size;
+    }
+
+    // Getter and setter for the version of the tree that created this node
+    public int getEpoch()
+    {
+        return epoch;
+    }
+
+    public void setEpoch(int epoch)
+    {
+        this.epoch = epoch;
+    }
+
+    // Getter and setter for the version of the tree that put the element in this node
+    public int getElementEpoch()
+    {
+        return elementEpoch;
+    }
+
+    public void setElementEpoch(int elementEpoch)
+    {
+        this.elementEpoch = elementEpoch;
+    }
 }
@@ -0,0 +1,648 @@
+package implementations;
+
+import utilities.BSTreeADT;
+import utilities.Iterator;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of the BSTreeADT interface as a B-tree. Each node holds up to
+ * fanout - 1 sorted elements in one array and, unless it is a leaf, fanout
+ * children. With many elements per node the tree is only log base fanout / 2
+ * of n levels deep, each search touches a handful of nodes, and an in-order
+ * scan reads whole arrays of neighbouring elements at a time. All leaves are
+ * always on the same level, so the tree never degrades however elements are
+ * added.
+ *
+ * Nodes are split on the way down when adding and refilled on the way down when
+ * removing, so neither ever walks back up the tree. The fanout must be even for
+ * this to work.
+ *
+ * A node holds several elements, so getRoot, search, removeMin and removeMax
+ * return a new BSTreeNode that holds the element but has no children. Changing
+ * that node does not change the tree. getHeight counts node levels, and the
+ * pre-order and post-order iterators visit the elements of a node together,
+ * before or after all of its children.
+ *
+ * @param <E> The type of elements stored in the tree, which must be comparable.
+ */
+
+public class BTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
+    private static final long serialVersionUID = 1L;
+    private static final int DEFAULT_FANOUT = 64;
+
+    private final int fanout;
+    private transient Node root;
+    private transient int height;
+    private transient int size;
+
+    // Default constructor initializes an empty tree with the default fanout
+    public BTree() {
+        this(DEFAULT_FANOUT);
+    }
+
+    // Parameterized constructor initializes an empty tree whose nodes have at
+    // most the given number of children
+    public BTree(int fanout) {
+        if (fanout < 4 || fanout % 2 != 0) {
+            throw new IllegalArgumentException("Fanout must be an even number of at least 4: " + fanout);
+        }
+        this.fanout = fanout;
+        clear();
+    }
+
+    /**
+     * Returns the maximum number of children of a node.
+     *
+     * @return the fanout of the tree
+     */
+    public int getFanout() {
+        return fanout;
+    }
+
+    /* Interface Implementation */
+
+    /**
+     * Returns a detached node holding the middle element of the root node.
+     *
+     * @return a node holding an element of the root node
+     * @throws NullPointerException if the tree is empty.
+     */
+    @Override
+    public BSTreeNode<E> getRoot() throws NullPointerException {
+        if (isEmpty()) {
+            throw new NullPointerException("The tree is empty.");
+        }
+        return new BSTreeNode<>(key(root, root.count >>> 1));
+    }
+
+    /**
+     * Returns the number of node levels in the tree, which is the most nodes a
+     * search visits.
+     *
+     * @return the height of the tree
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of elements in the tree.
+     *
+     * @return the size of the tree
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the tree is empty.
+     *
+     * @return true if the tree is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Clears the tree, removing all elements.
+     */
+    @Override
+    public void clear() {
+        root = new Node(fanout, true);
+        height = 0;
+        size = 0;
+    }
+
+    /**
+     * Checks if the tree contains a specific element.
+     *
+     * @param entry the element to search for
+     * @return true if the element is found, false otherwise
+     * @throws NullPointerException if the entry is null
+     */
+    @Override
+    public boolean contains(E entry) throws NullPointerException {
+        return search(entry) != null;
+    }
+
+    /**
+     * Searches for a specific element in the tree and returns a detached node
+     * holding the resident element.
+     *
+     * @param entry the element to search for
+     * @return a node holding the element, or null if not found
+     * @throws NullPointerException if the entry is null
+     */
+    @Override
+    public BSTreeNode<E> search(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException("The entry cannot be null.");
+        }
+        Node node = root;
+        while (true) {
+            int index = indexOf(node, entry);
+            if (index >= 0) {
+                return new BSTreeNode<>(key(node, index));
+            }
+            if (node.isLeaf()) {
+                return null;
+            }
+            node = node.children[-index - 1];
+        }
+    }
+
+    /**
+     * Adds a new element to the tree. Full nodes met on the way down are split,
+     * so there is always room to insert into the leaf.
+     *
+     * @param newEntry the element to add
+     * @return true if the element was added, false if it already exists
+     * @throws NullPointerException if the new entry is null
+     */
+    @Override
+    public boolean add(E newEntry) throws NullPointerException {
+        if (newEntry == null) {
+            throw new NullPointerException("The new entry cannot be null.");
+        }
+        if (root.count == fanout - 1) {
+            Node grown = new Node(fanout, false);
+            grown.children[0] = root;
+            root = grown;
+            split(root, 0);
+            height++;
+        }
+        Node node = root;
+        while (true) {
+            int index = indexOf(node, newEntry);
+            if (index >= 0) {
+                return false;
+            }
+            index = -index - 1;
+            if (node.isLeaf()) {
+                insert(node, index, newEntry, null);
+                if (height == 0) {
+                    height = 1;
+                }
+                size++;
+                return true;
+            }
+            if (node.children[index].count == fanout - 1) {
+                split(node, index);
+                int comparison = newEntry.compareTo(key(node, index));
+                if (comparison == 0) {
+                    return false;
+                }
+                if (comparison > 0) {
+                    index++;
+                }
+            }
+            node = node.children[index];
+        }
+    }
+
+    /**
+     * Removes the smallest element from the tree. Each node on the way down to
+     * the leftmost leaf is refilled first, so the leaf never underflows.
+     *
+     * @return a node holding the smallest element, or null if the tree is empty
+     */
+    @Override
+    public BSTreeNode<E> removeMin() {
+        if (isEmpty()) {
+            return null;
+        }
+        Node node = root;
+        while (!node.isLeaf()) {
+            node = refill(node, 0);
+        }
+        BSTreeNode<E> removed = new BSTreeNode<>(key(node, 0));
+        delete(node, 0, false);
+        shrink();
+        return removed;
+    }
+
+    /**
+     * Removes the largest element from the tree. Each node on the way down to
+     * the rightmost leaf is refilled first, so the leaf never underflows.
+     *
+     * @return a node holding the largest element, or null if the tree is empty
+     */
+    @Override
+    public BSTreeNode<E> removeMax() {
+        if (isEmpty()) {
+            return null;
+        }
+        Node node = root;
+        while (!node.isLeaf()) {
+            node = refill(node, node.count);
+        }
+        BSTreeNode<E> removed = new BSTreeNode<>(key(node, node.count - 1));
+        delete(node, node.count - 1, false);
+        shrink();
+        return removed;
+    }
+
+    /**
+     * Performs an action on every element in their natural order. Leaves are
+     * scanned straight through their element arrays, and the recursion is only
+     * as deep as the tree has levels.
+     *
+     * @param action the action to perform on each element
+     * @throws NullPointerException if the action is null
+     */
+    public void forEachInorder(Consumer<? super E> action) throws NullPointerException {
+        if (action == null) {
+            throw new NullPointerException("The action cannot be null.");
+        }
+        forEachInorder(root, action);
+    }
+
+    /* Node Helpers */
+
+    // Node holding up to fanout - 1 sorted elements and, unless it is a leaf,
+    // one more child than elements
+    private static final class Node {
+        final Object[] keys;
+        final Node[] children;
+        int count;
+
+        Node(int fanout, boolean leaf) {
+            keys = new Object[fanout - 1];
+            children = leaf ? null : new Node[fanout];
+        }
+
+        boolean isLeaf() {
+            return children == null;
+        }
+    }
+
+    /**
+     * Binary searches a node for an element.
+     *
+     * @param node  the node to search
+     * @param entry the element to search for
+     * @return the index of the element, or -(insertion point) - 1 if it is not
+     *         in the node, where the insertion point is also the child to
+     *         descend into
+     */
+    private int indexOf(Node node, E entry) {
+        int low = 0;
+        int high = node.count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = entry.compareTo(key(node, middle));
+            if (comparison < 0) {
+                high = middle - 1;
+            } else if (comparison > 0) {
+                low = middle + 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Splits the full child at an index of a node around its middle element,
+     * which moves up into the node.
+     *
+     * @param parent the node, which must not be full
+     * @param index  the index of the full child
+     */
+    private void split(Node parent, int index) {
+        Node child = parent.children[index];
+        int half = fanout / 2;
+        Node sibling = new Node(fanout, child.isLeaf());
+        sibling.count = half - 1;
+        System.arraycopy(child.keys, half, sibling.keys, 0, half - 1);
+        if (!child.isLeaf()) {
+            System.arraycopy(child.children, half, sibling.children, 0, half);
+            Arrays.fill(child.children, half, fanout, null);
+        }
+        Object middle = child.keys[half - 1];
+        Arrays.fill(child.keys, half - 1, fanout - 1, null);
+        child.count = half - 1;
+        insert(parent, index, middle, sibling);
+    }
+
+    /**
+     * Makes sure the child at an index of a node has more than the minimum
+     * number of elements, by borrowing one from a sibling or by merging with
+     * it, so an element can be removed below it.
+     *
+     * @param parent the node, which has more than the minimum unless it is the
+     *               root
+     * @param index  the index of the child to refill
+     * @return the child to descend into, which is a merged node after a merge
+     */
+    private Node refill(Node parent, int index) {
+        Node child = parent.children[index];
+        int half = fanout / 2;
+        if (child.count >= half) {
+            return child;
+        }
+        if (index > 0 && parent.children[index - 1].count >= half) {
+            // Rotate the last element of the left sibling through the parent
+            Node sibling = parent.children[index - 1];
+            Node moved = sibling.isLeaf() ? null : sibling.children[sibling.count];
+            insert(child, 0, parent.keys[index - 1], null);
+            if (moved != null) {
+                System.arraycopy(child.children, 0, child.children, 1, child.count);
+                child.children[0] = moved;
+            }
+            parent.keys[index - 1] = sibling.keys[sibling.count - 1];
+            delete(sibling, sibling.count - 1, true);
+            return child;
+        }
+        if (index < parent.count && parent.children[index + 1].count >= half) {
+            // Rotate the first element of the right sibling through the parent
+            Node sibling = parent.children[index + 1];
+            Node moved = sibling.isLeaf() ? null : sibling.children[0];
+            insert(child, child.count, parent.keys[index], moved);
+            parent.keys[index] = sibling.keys[0];
+            delete(sibling, 0, false);
+            if (moved != null) {
+                System.arraycopy(sibling.children, 1, sibling.children, 0, sibling.count + 1);
+                sibling.children[sibling.count + 1] = null;
+            }
+            return child;
+        }
+        // Both neighbours are at the minimum, so merge with one of them
+        int left = index < parent.count ? index : index - 1;
+        Node merged = parent.children[left];
+        Node absorbed = parent.children[left + 1];
+        merged.keys[merged.count] = parent.keys[left];
+        System.arraycopy(absorbed.keys, 0, merged.keys, merged.count + 1, absorbed.count);
+        if (!merged.isLeaf()) {
+            System.arraycopy(absorbed.children, 0, merged.children, merged.count + 1, absorbed.count + 1);
+        }
+        merged.count += absorbed.count + 1;
+        delete(parent, left, true);
+        parent.children[left] = merged;
+        return merged;
+    }
+
+    /**
+     * Inserts an element into a node that has room for it.
+     *
+     * @param node    the node
+     * @param index   the position of the new element
+     * @param key     the element
+     * @param right   the child to the right of the new element, or null in a
+     *                leaf
+     */
+    private static void insert(Node node, int index, Object key, Node right) {
+        System.arraycopy(node.keys, index, node.keys, index + 1, node.count - index);
+        node.keys[index] = key;
+        if (right != null) {
+            System.arraycopy(node.children, index + 1, node.children, index + 2, node.count - index);
+            node.children[index + 1] = right;
+        }
+        node.count++;
+    }
+
+    /**
+     * Deletes an element from a node, along with the child to its right when
+     * asked to.
+     *
+     * @param node       the node
+     * @param index      the position of the element
+     * @param rightChild true to also delete the child to the right of the
+     *                   element
+     */
+    private static void delete(Node node, int index, boolean rightChild) {
+        System.arraycopy(node.keys, index + 1, node.keys, index, node.count - index - 1);
+        node.keys[node.count - 1] = null;
+        if (rightChild && !node.isLeaf()) {
+            System.arraycopy(node.children, index + 2, node.children, index + 1, node.count - index - 1);
+            node.children[node.count] = null;
+        }
+        node.count--;
+    }
+
+    // Accounts for a removed element and drops a root left without elements
+    private void shrink() {
+        size--;
+        if (root.count == 0) {
+            if (root.isLeaf()) {
+                height = 0;
+            } else {
+                root = root.children[0];
+                height--;
+            }
+        }
+    }
+
+    // Recursive in-order scan of a subtree
+    private void forEachInorder(Node node, Consumer<? super E> action) {
+        if (node.isLeaf()) {
+            for (int i = 0; i < node.count; i++) {
+                action.accept(key(node, i));
+            }
+            return;
+        }
+        for (int i = 0; i < node.count; i++) {
+            forEachInorder(node.children[i], action);
+            action.accept(key(node, i));
+        }
+        forEachInorder(node.children[node.count], action);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E key(Node node, int index) {
+        return (E) node.keys[index];
+    }
+
+    /**
+     * Writes the tree as its elements in order, so it can be rebuilt without
+     * writing out the nodes.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (Iterator<E> it = inorderIterator(); it.hasNext();) {
+            out.writeObject(it.next());
+        }
+    }
+
+    /**
+     * Rebuilds the tree from a stream written by writeObject.
+     *
+     * @param in the stream to read from
+     * @throws IOException            if the stream cannot be read
+     * @throws ClassNotFoundException if a class in the stream cannot be found
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            add((E) in.readObject());
+        }
+    }
+
+    /* Iterator Implementations */
+
+    @Override
+    public Iterator<E> inorderIterator() {
+        return new InorderIterator();
+    }
+
+    @Override
+    public Iterator<E> preorderIterator() {
+        return new NodeOrderIterator(true);
+    }
+
+    @Override
+    public Iterator<E> postorderIterator() {
+        return new NodeOrderIterator(false);
+    }
+
+    // Stack of nodes, each paired with the next position to visit in it
+    private static class NodeStack {
+        private Node[] nodes;
+        private int[] positions;
+        private int top;
+
+        NodeStack(int capacity) {
+            nodes = new Node[Math.max(capacity, 1)];
+            positions = new int[nodes.length];
+        }
+
+        void push(Node node, int position) {
+            if (top == nodes.length) {
+                nodes = Arrays.copyOf(nodes, top * 2);
+                positions = Arrays.copyOf(positions, top * 2);
+            }
+            nodes[top] = node;
+            positions[top++] = position;
+        }
+
+        void pop() {
+            nodes[--top] = null;
+        }
+
+        Node node() {
+            return nodes[top - 1];
+        }
+
+        // Returns the position of the top node and moves it on by one
+        int advance() {
+            return positions[top - 1]++;
+        }
+
+        boolean isEmpty() {
+            return top == 0;
+        }
+    }
+
+    // Inorder Iterator, which reads each leaf straight through its elements and
+    // only goes back to the stack between leaves
+    private class InorderIterator implements Iterator<E> {
+        // Holds only internal nodes that still have elements left to visit
+        private final NodeStack stack = new NodeStack(height);
+        private Node leaf;
+        private int next;
+
+        public InorderIterator() {
+            descend(root);
+        }
+
+        // Pushes the path to the leftmost leaf of a subtree
+        private void descend(Node node) {
+            while (!node.isLeaf()) {
+                stack.push(node, 0);
+                node = node.children[0];
+            }
+            leaf = node;
+            next = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < leaf.count || !stack.isEmpty();
+        }
+
+        @Override
+        public E next() {
+            if (next < leaf.count) {
+                return key(leaf, next++);
+            }
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException("No more elements in inorder iterator");
+            }
+            Node node = stack.node();
+            int index = stack.advance();
+            if (index + 1 == node.count) {
+                stack.pop();
+            }
+            descend(node.children[index + 1]);
+            return key(node, index);
+        }
+    }
+
+    // Pre-order or post-order iterator, which visits the elements of each node
+    // together, before or after all of its children
+    private class NodeOrderIterator implements Iterator<E> {
+        private final NodeStack stack = new NodeStack(height);
+        private final boolean preorder;
+        private Node visiting;
+        private int next;
+
+        public NodeOrderIterator(boolean preorder) {
+            this.preorder = preorder;
+            // A position of -1 means the node's own elements are still due
+            stack.push(root, preorder ? -1 : 0);
+            advance();
+        }
+
+        // Moves on to the next node with elements left to visit
+        private void advance() {
+            while ((visiting == null || next == visiting.count) && !stack.isEmpty()) {
+                Node node = stack.node();
+                int position = stack.advance();
+                int children = node.isLeaf() ? 0 : node.count + 1;
+                if (position < 0 || (!preorder && position == children)) {
+                    visiting = node;
+                    next = 0;
+                    if (node.isLeaf() || !preorder) {
+                        stack.pop();
+                    }
+                } else if (position < children) {
+                    stack.push(node.children[position], preorder ? -1 : 0);
+                } else {
+                    stack.pop();
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return visiting != null && next < visiting.count;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements in iterator");
+            }
+            E element = key(visiting, next++);
+            if (next == visiting.count) {
+                advance();
+            }
+            return element;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package implementations;
+
+import utilities.BSTreeADT;
+import utilities.Iterator;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe implementation of the BSTreeADT interface for parallel ingestion.
+ * Elements are kept in a lock-free skip list, so any number of threads can add,
+ * search and remove at the same time without a global lock. Each element lives
+ * in its own BSTreeNode, and search always returns that same resident node.
+ *
+ * A skip list has no binary shape of its own. Where the interface asks for one
+ * (getRoot, getHeight and the pre-order and post-order iterators), the tree is
+ * presented as the perfectly balanced BST over its current contents. The nodes
+ * are never linked into that shape, so the node getRoot returns, like every
+ * node of this tree, has no children.
+ *
+ * The in-order iterator is weakly consistent: it never throws because of
+ * concurrent writes, returns elements in ascending order, and reflects some or
+ * all of the changes made after it was created. Likewise, size() may briefly
+ * lag behind writes that are still in progress on other threads.
+ *
+ * @param <E> The type of elements stored in the tree, which must be comparable.
+ */
+
+public class ConcurrentBSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
+    private static final long serialVersionUID = 1L;
+    private final ConcurrentSkipListMap<E, BSTreeNode<E>> map;
+    // Kept separately because counting the skip list is O(n)
+    private final AtomicInteger size;
+
+    // Default constructor initializes an empty tree
+    public ConcurrentBSTree() {
+        map = new ConcurrentSkipListMap<>();
+        size = new AtomicInteger();
+    }
+
+    /* Interface Implementation */
+
+    /**
+     * Returns the detached node holding the median element, the element at the
+     * root of the perfectly balanced BST over the current contents (the same
+     * shape BSTree.fromSorted builds). The node is the resident node of that
+     * element, but its children are null, so the balanced shape cannot be
+     * walked from it. This takes O(n) time to step to the middle of the skip
+     * list, without copying it.
+     *
+     * @return a detached node holding the root element of the balanced
+     *         equivalent of the tree
+     * @throws NullPointerException if the tree is empty.
+     */
+    @Override
+    public BSTreeNode<E> getRoot() throws NullPointerException {
+        // Step to the middle, stopping at the last node if writes on other
+        // threads have shortened the list meanwhile
+        java.util.Iterator<BSTreeNode<E>> nodes = map.values().iterator();
+        if (!nodes.hasNext()) {
+            throw new NullPointerException("The tree is empty.");
+        }
+        BSTreeNode<E> node = nodes.next();
+        for (int i = size() >>> 1; i > 0 && nodes.hasNext(); i--) {
+            node = nodes.next();
+        }
+        return node;
+    }
+
+    /**
+     * Returns the height of the perfectly balanced BST over the current
+     * contents, which is also the expected length of a search.
+     *
+     * @return the height of the balanced equivalent of the tree
+     */
+    @Override
+    public int getHeight() {
+        return 32 - Integer.numberOfLeadingZeros(size());
+    }
+
+    /**
+     * Returns the number of elements in the tree.
+     *
+     * @return the size of the tree
+     */
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Checks if the tree is empty.
+     *
+     * @return true if the tree is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /**
+     * Clears the tree, removing all elements. Elements added by other threads
+     * while the tree is being cleared may survive.
+     */
+    @Override
+    public void clear() {
+        while (map.pollFirstEntry() != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Checks if the tree contains a specific element.
+     *
+     * @param entry the element to search for
+     * @return true if the element is found, false otherwise
+     * @throws NullPointerException if the entry is null
+     */
+    @Override
+    public boolean contains(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException("The entry cannot be null.");
+        }
+        return map.containsKey(entry);
+    }
+
+    /**
+     * Searches for a specific element in the tree and returns the corresponding
+     * node.
+     *
+     * @param entry the element to search for
+     * @return the node containing the element, or null if not found
+     * @throws NullPointerException if the entry is null
+     */
+    @Override
+    public BSTreeNode<E> search(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException("The entry cannot be null.");
+        }
+        return map.get(entry);
+    }
+
+    /**
+     * Adds a new element to the tree.
+     *
+     * @param newEntry the element to add
+     * @return true if the element was added, false if it already exists
+     * @throws NullPointerException if the new entry is null
+     */
+    @Override
+    public boolean add(E newEntry) throws NullPointerException {
+        if (newEntry == null) {
+            throw new NullPointerException("The new entry cannot be null.");
+        }
+        if (map.putIfAbsent(newEntry, new BSTreeNode<>(newEntry)) != null) {
+            return false;
+        }
+        size.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Returns the node holding an element equal to the given one, adding the
+     * element first if the tree does not contain it yet. When several threads
+     * add equal elements at once, exactly one of them is added and all of them
+     * get back the same node.
+     *
+     * @param entry the element to find or add
+     * @return the node containing the resident element
+     * @throws NullPointerException if the entry is null
+     */
+    public BSTreeNode<E> getOrAdd(E entry) throws NullPointerException {
+        if (entry == null) {
+            throw new NullPointerException("The new entry cannot be null.");
+        }
+        BSTreeNode<E> node = map.get(entry);
+        if (node != null) {
+            return node;
+        }
+        BSTreeNode<E> added = new BSTreeNode<>(entry);
+        node = map.putIfAbsent(entry, added);
+        if (node != null) {
+            return node;
+        }
+        size.incrementAndGet();
+        return added;
+    }
+
+    /**
+     * Removes the smallest element from the tree.
+     *
+     * @return the node containing the smallest element, or null if the tree is
+     *         empty
+     */
+    @Override
+    public BSTreeNode<E> removeMin() {
+        return removed(map.pollFirstEntry());
+    }
+
+    /**
+     * Removes the largest element from the tree.
+     *
+     * @return the node containing the largest element, or null if the tree is empty
+     */
+    @Override
+    public BSTreeNode<E> removeMax() {
+        return removed(map.pollLastEntry());
+    }
+
+    // Accounts for an entry polled from the skip list and returns its node
+    private BSTreeNode<E> removed(Map.Entry<E, BSTreeNode<E>> entry) {
+        if (entry == null) {
+            return null;
+        }
+        size.decrementAndGet();
+        return entry.getValue();
+    }
+
+    /* Iterator Implementations */
+
+    /**
+     * Generates a weakly consistent in-order iteration over the tree.
+     *
+     * @return an iterator with the elements in the natural order
+     */
+    @Override
+    public Iterator<E> inorderIterator() {
+        final java.util.Iterator<E> keys = map.keySet().iterator();
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return keys.hasNext();
+            }
+
+            @Override
+            public E next() throws NoSuchElementException {
+                return keys.next();
+            }
+        };
+    }
+
+    /**
+     * Generates a pre-order iteration over the perfectly balanced BST built from
+     * a snapshot of the current contents.
+     *
+     * @return an iterator with the elements in a root element first order
+     */
+    @Override
+    public Iterator<E> preorderIterator() {
+        ArrayList<E> sorted = new ArrayList<>(map.keySet());
+        ArrayList<E> order = new ArrayList<>(sorted.size());
+        walk(sorted, 0, sorted.size(), order, true);
+        return new ListIterator(order);
+    }
+
+    /**
+     * Generates a post-order iteration over the perfectly balanced BST built from
+     * a snapshot of the current contents.
+     *
+     * @return an iterator with the elements in a root element last order
+     */
+    @Override
+    public Iterator<E> postorderIterator() {
+        ArrayList<E> sorted = new ArrayList<>(map.keySet());
+        ArrayList<E> order = new ArrayList<>(sorted.size());
+        walk(sorted, 0, sorted.size(), order, false);
+        return new ListIterator(order);
+    }
+
+    /**
+     * Helper method to list the balanced BST over a range of sorted elements in
+     * pre-order or post-order recursively. The recursion is log n deep.
+     *
+     * @param sorted   the elements in ascending order
+     * @param low      the first index of the range
+     * @param high     one past the last index of the range
+     * @param order    the list to append the elements to
+     * @param preorder true for pre-order, false for post-order
+     */
+    private void walk(ArrayList<E> sorted, int low, int high, ArrayList<E> order, boolean preorder) {
+        if (low >= high) {
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        if (preorder) {
+            order.add(sorted.get(middle));
+        }
+        walk(sorted, low, middle, order, preorder);
+        walk(sorted, middle + 1, high, order, preorder);
+        if (!preorder) {
+            order.add(sorted.get(middle));
+        }
+    }
+
+    // Iterator over a list of elements already in traversal order
+    private class ListIterator implements Iterator<E> {
+        private final ArrayList<E> order;
+        private int next;
+
+        public ListIterator(ArrayList<E> order) {
+            this.order = order;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < order.size();
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements in iterator");
+            }
+            return order.get(next++);
+        }
+    }
+}
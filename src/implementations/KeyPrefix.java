@@ -0,0 +1,63 @@
+package implementations;
+
+/**
+ * Packs the first characters of a string key into a long, so most comparisons
+ * between keys are settled by one unsigned long comparison instead of a walk
+ * over both strings. Keys that store their packed prefix next to the string
+ * compare the prefixes first and only compare the strings when the prefixes
+ * are equal.
+ *
+ * Each of the first eight characters takes one byte, with the first character
+ * in the highest byte. A character above 0xFF is stored as 0xFF and ends the
+ * prefix, and shorter keys are padded with zero bytes. Comparing two prefixes
+ * as unsigned longs therefore never disagrees with String.compareTo; when they
+ * are equal, the strings still have to be compared.
+ */
+
+public final class KeyPrefix {
+    // The number of characters packed into a prefix
+    private static final int LENGTH = 8;
+
+    private KeyPrefix() {
+    }
+
+    /**
+     * Packs the first characters of a key.
+     *
+     * @param key the key
+     * @return the packed prefix
+     * @throws NullPointerException if the key is null
+     */
+    public static long of(String key) throws NullPointerException {
+        long prefix = 0;
+        int length = Math.min(key.length(), LENGTH);
+        int i = 0;
+        while (i < length) {
+            char c = key.charAt(i++);
+            if (c >= 0xFF) {
+                prefix = (prefix << 8) | 0xFF;
+                break;
+            }
+            prefix = (prefix << 8) | c;
+        }
+        return prefix << (8 * (LENGTH - i));
+    }
+
+    /**
+     * Compares two keys in the order of String.compareTo, using their packed
+     * prefixes first.
+     *
+     * @param first        the first key
+     * @param firstPrefix  the packed prefix of the first key
+     * @param second       the second key
+     * @param secondPrefix the packed prefix of the second key
+     * @return a negative number, zero or a positive number as the first key is
+     *         less than, equal to or greater than the second
+     */
+    public static int compare(String first, long firstPrefix, String second, long secondPrefix) {
+        if (firstPrefix != secondPrefix) {
+            return Long.compareUnsigned(firstPrefix, secondPrefix);
+        }
+        return first.compareTo(second);
+    }
+}
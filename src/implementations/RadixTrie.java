@@ -0,0 +1,318 @@
+package implementations;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Compressed radix trie (PATRICIA trie) that maps strings to values. Each edge
+ * is labelled with a run of characters, and a node only exists where keys
+ * branch or end, so keys with a common prefix store that prefix once. Looking
+ * up a key takes time in proportion to its length, however many keys there are,
+ * and never compares whole strings.
+ *
+ * The children of a node are kept in an exact-size array sorted by the first
+ * character of their labels, which is the order String.compareTo uses, so keys
+ * are visited in the same order a BSTree of strings would visit them. Keys are
+ * not stored as strings; they are rebuilt from the labels while visiting.
+ *
+ * @param <V> The type of the values, which cannot be null.
+ */
+
+public class RadixTrie<V> implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final char[] NO_LABEL = new char[0];
+
+    private Node<V> root;
+    private int size;
+
+    // Default constructor initializes an empty trie
+    public RadixTrie() {
+        clear();
+    }
+
+    /**
+     * Returns the number of keys in the trie.
+     *
+     * @return the size of the trie
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the trie is empty.
+     *
+     * @return true if the trie has no keys, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Clears the trie, removing all keys.
+     */
+    public void clear() {
+        root = new Node<>(NO_LABEL);
+        size = 0;
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key the key to look up
+     * @return the value, or null if the trie does not contain the key
+     * @throws NullPointerException if the key is null
+     */
+    public V get(String key) throws NullPointerException {
+        if (key == null) {
+            throw new NullPointerException("The key cannot be null.");
+        }
+        Node<V> node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            int slot = node.find(key.charAt(matched));
+            if (slot < 0) {
+                return null;
+            }
+            node = node.children[slot];
+            if (common(node.label, key, matched) < node.label.length) {
+                return null;
+            }
+            matched += node.label.length;
+        }
+        return node.value;
+    }
+
+    /**
+     * Returns the value of a key, adding the key with a value from the factory
+     * first if the trie does not contain it yet. Adding a key splits at most one
+     * edge and adds at most one leaf.
+     *
+     * @param key     the key to find or add
+     * @param factory creates the value of a new key
+     * @return the value of the key
+     * @throws NullPointerException if the key is null or the factory returns
+     *                              null
+     */
+    public V getOrAdd(String key, Supplier<? extends V> factory) throws NullPointerException {
+        Node<V> node = node(key);
+        if (node.value == null) {
+            V value = factory.get();
+            if (value == null) {
+                throw new NullPointerException("The new value cannot be null.");
+            }
+            node.value = value;
+            size++;
+        }
+        return node.value;
+    }
+
+    /**
+     * Sets the value of a key, adding the key if the trie does not contain it.
+     *
+     * @param key   the key
+     * @param value the new value
+     * @return the previous value of the key, or null if it was added
+     * @throws NullPointerException if the key or value is null
+     */
+    public V put(String key, V value) throws NullPointerException {
+        if (value == null) {
+            throw new NullPointerException("The value cannot be null.");
+        }
+        Node<V> node = node(key);
+        V previous = node.value;
+        node.value = value;
+        if (previous == null) {
+            size++;
+        }
+        return previous;
+    }
+
+    /**
+     * Performs an action on every key and its value, in the natural order of the
+     * keys.
+     *
+     * @param action the action to perform on each key and value
+     * @throws NullPointerException if the action is null
+     */
+    public void forEach(BiConsumer<? super String, ? super V> action) throws NullPointerException {
+        forEachWithPrefix("", action);
+    }
+
+    /**
+     * Performs an action on every key that starts with a prefix, and its value,
+     * in the natural order of the keys. Only the subtree below the prefix is
+     * visited.
+     *
+     * @param prefix the prefix of the keys to visit
+     * @param action the action to perform on each key and value
+     * @throws NullPointerException if the prefix or action is null
+     */
+    public void forEachWithPrefix(String prefix, BiConsumer<? super String, ? super V> action)
+            throws NullPointerException {
+        if (prefix == null || action == null) {
+            throw new NullPointerException("The prefix and action cannot be null.");
+        }
+        Node<V> node = root;
+        int matched = 0;
+        int above = 0;
+        while (matched < prefix.length()) {
+            int slot = node.find(prefix.charAt(matched));
+            if (slot < 0) {
+                return;
+            }
+            node = node.children[slot];
+            // The prefix may end part way along the label
+            int common = common(node.label, prefix, matched);
+            if (common < node.label.length && matched + common < prefix.length()) {
+                return;
+            }
+            above = matched;
+            matched += node.label.length;
+        }
+        walk(node, new StringBuilder(prefix.substring(0, above)), action);
+    }
+
+    /* Node Helpers */
+
+    // Node reached by an edge with a label; it holds a value if a key ends here
+    private static final class Node<V> implements Serializable {
+        private static final long serialVersionUID = 1L;
+        char[] label;
+        // Sorted by the first character of their labels, or null for a leaf
+        Node<V>[] children;
+        V value;
+
+        Node(char[] label) {
+            this.label = label;
+        }
+
+        // Binary searches the children for the one whose label starts with a
+        // character, returning -(insertion point) - 1 if there is none
+        int find(char first) {
+            if (children == null) {
+                return -1;
+            }
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char c = children[middle].label[0];
+                if (c < first) {
+                    low = middle + 1;
+                } else if (c > first) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        void insert(int slot, Node<V> child) {
+            Node<V>[] grown = new Node[children == null ? 1 : children.length + 1];
+            if (children != null) {
+                System.arraycopy(children, 0, grown, 0, slot);
+                System.arraycopy(children, slot, grown, slot + 1, children.length - slot);
+            }
+            grown[slot] = child;
+            children = grown;
+        }
+    }
+
+    /**
+     * Finds the node of a key, adding the nodes it needs if it is not in the
+     * trie. A new node has no value yet.
+     *
+     * @param key the key
+     * @return the node where the key ends
+     * @throws NullPointerException if the key is null
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Node<V> node(String key) throws NullPointerException {
+        if (key == null) {
+            throw new NullPointerException("The key cannot be null.");
+        }
+        Node<V> node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            int slot = node.find(key.charAt(matched));
+            if (slot < 0) {
+                Node<V> leaf = new Node<>(key.substring(matched).toCharArray());
+                node.insert(-slot - 1, leaf);
+                return leaf;
+            }
+            Node<V> child = node.children[slot];
+            int common = common(child.label, key, matched);
+            if (common < child.label.length) {
+                // Split the edge where the key leaves it
+                Node<V> middle = new Node<>(Arrays.copyOf(child.label, common));
+                child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                middle.children = new Node[] { child };
+                node.children[slot] = middle;
+                child = middle;
+            }
+            node = child;
+            matched += common;
+        }
+        return node;
+    }
+
+    /**
+     * Counts how many characters a label shares with a key from an offset.
+     *
+     * @param label  the label
+     * @param key    the key
+     * @param offset the position in the key to compare from
+     * @return the length of the common run
+     */
+    private static int common(char[] label, String key, int offset) {
+        int limit = Math.min(label.length, key.length() - offset);
+        int i = 0;
+        while (i < limit && label[i] == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Visits the keys of a subtree in order, without recursion, so long keys
+     * cannot overflow the stack.
+     *
+     * @param top    the root of the subtree
+     * @param path   the key up to, but not including, the label of the root
+     * @param action the action to perform on each key and value
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static <V> void walk(Node<V> top, StringBuilder path, BiConsumer<? super String, ? super V> action) {
+        Node<V>[] nodes = new Node[16];
+        int[] lengths = new int[16];
+        int count = 0;
+        nodes[count] = top;
+        lengths[count++] = path.length();
+        while (count > 0) {
+            Node<V> node = nodes[--count];
+            path.setLength(lengths[count]);
+            path.append(node.label);
+            if (node.value != null) {
+                action.accept(path.toString(), node.value);
+            }
+            if (node.children == null) {
+                continue;
+            }
+            // Push the children largest first, so the smallest is visited next
+            if (count + node.children.length > nodes.length) {
+                int capacity = Math.max(nodes.length * 2, count + node.children.length);
+                nodes = Arrays.copyOf(nodes, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            for (int i = node.children.length - 1; i >= 0; i--) {
+                nodes[count] = node.children[i];
+                lengths[count++] = path.length();
+            }
+        }
+    }
+}
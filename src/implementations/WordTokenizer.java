@@ -0,0 +1,207 @@
+package implementations;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Splits lines of text into the words WordTracker indexes, without regular
+ * expressions and without allocating for each word. A word is a run of
+ * characters between whitespace (space, tab, newline, vertical tab, form feed
+ * or carriage return) with every character other than an ASCII letter or
+ * digit removed and the letters lowercased. This gives exactly the words of
+ * splitting a line on "\\s+" and applying replaceAll("[^a-zA-Z0-9]", "") and
+ * toLowerCase() to each part, skipping parts left empty.
+ *
+ * A lookup table classifies each character and gives its lowercase form, so
+ * each character costs one array read. The current word is kept in a reusable
+ * buffer together with its String hash code, so a cache can look it up without
+ * creating a String; word() creates one only when it is needed.
+ *
+ * Lines can also be read straight from bytes, when every byte below 0x80 in
+ * their charset is that ASCII character and never part of a longer sequence,
+ * as in UTF-8 or ISO-8859-1. Only ASCII characters can be whitespace or part of
+ * a word, so the other bytes can be dropped without decoding them.
+ */
+
+public class WordTokenizer {
+    // Marks characters that separate words in the lowercase table
+    private static final char SPACE = 0xFFFF;
+    // Marks characters that are dropped from words in the lowercase table
+    private static final char DROP = 0xFFFE;
+    // The lowercase form of each ASCII letter or digit, or SPACE or DROP
+    private static final char[] TABLE = new char[128];
+
+    static {
+        Arrays.fill(TABLE, DROP);
+        for (char c : new char[] { ' ', '\t', '\n', 0x0B, '\f', '\r' }) {
+            TABLE[c] = SPACE;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            TABLE[c] = c;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            TABLE[c] = c;
+            TABLE[c - 'a' + 'A'] = c;
+        }
+    }
+
+    private CharSequence line;
+    private ByteBuffer bytes;
+    private int position;
+    private int limit;
+    private char[] word = new char[32];
+    private int length;
+    private int hash;
+
+    /**
+     * Starts reading the words of a new line.
+     *
+     * @param text the line to split
+     * @throws NullPointerException if the line is null
+     */
+    public void reset(CharSequence text) throws NullPointerException {
+        if (text == null) {
+            throw new NullPointerException("The line cannot be null.");
+        }
+        line = text;
+        bytes = null;
+        position = 0;
+        limit = text.length();
+        length = 0;
+    }
+
+    /**
+     * Starts reading the words of a new line held as bytes in a buffer, in a
+     * charset that encodes ASCII characters as single bytes.
+     *
+     * @param buffer the buffer holding the line, which is not changed
+     * @param from   the position of the first byte of the line
+     * @param to     the position after the last byte of the line
+     * @throws NullPointerException      if the buffer is null
+     * @throws IndexOutOfBoundsException if the positions are not within the
+     *                                   buffer's limit
+     */
+    public void reset(ByteBuffer buffer, int from, int to)
+            throws NullPointerException, IndexOutOfBoundsException {
+        if (buffer == null) {
+            throw new NullPointerException("The buffer cannot be null.");
+        }
+        if (from < 0 || from > to || to > buffer.limit()) {
+            throw new IndexOutOfBoundsException("Illegal line: " + from + " to " + to);
+        }
+        line = null;
+        bytes = buffer;
+        position = from;
+        limit = to;
+        length = 0;
+    }
+
+    /**
+     * Moves to the next word of the line.
+     *
+     * @return true if there is another word, false at the end of the line
+     */
+    public boolean next() {
+        if (bytes != null) {
+            return nextInBytes();
+        }
+        while (position < limit) {
+            length = 0;
+            hash = 0;
+            // Read up to the next whitespace, keeping letters and digits
+            while (position < limit) {
+                char c = line.charAt(position++);
+                char mapped = c < 128 ? TABLE[c] : DROP;
+                if (mapped == SPACE) {
+                    break;
+                }
+                if (mapped != DROP) {
+                    append(mapped);
+                }
+            }
+            if (length > 0) {
+                return true;
+            }
+        }
+        length = 0;
+        return false;
+    }
+
+    /**
+     * Returns the length of the current word.
+     *
+     * @return the number of characters in the word
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the hash code the current word will have as a String.
+     *
+     * @return the String hash code of the word
+     */
+    public int hash() {
+        return hash;
+    }
+
+    /**
+     * Checks if the current word is equal to a string, without creating a
+     * String for the word.
+     *
+     * @param other the string to compare with, or null
+     * @return true if the string holds exactly the current word
+     */
+    public boolean matches(String other) {
+        if (other == null || other.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (other.charAt(i) != word[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a String holding the current word.
+     *
+     * @return the word
+     */
+    public String word() {
+        return new String(word, 0, length);
+    }
+
+    // Moves to the next word of a line held as bytes
+    private boolean nextInBytes() {
+        while (position < limit) {
+            length = 0;
+            hash = 0;
+            while (position < limit) {
+                int b = bytes.get(position++);
+                char mapped = b >= 0 ? TABLE[b] : DROP;
+                if (mapped == SPACE) {
+                    break;
+                }
+                if (mapped != DROP) {
+                    append(mapped);
+                }
+            }
+            if (length > 0) {
+                return true;
+            }
+        }
+        length = 0;
+        return false;
+    }
+
+    // Adds a character to the current word, growing the buffer if it is full
+    private void append(char c) {
+        if (length == word.length) {
+            word = Arrays.copyOf(word, length * 2);
+        }
+        word[length++] = c;
+        hash = 31 * hash + c;
+    }
+}
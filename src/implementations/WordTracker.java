@@ -3,17 +3,80 @@ package implementations;
 import utilities.Iterator;
 
 import java.io.*;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * WordTracker program for Assignment 3
  * This program reads text files and tracks words
  */
 public class WordTracker {
-    // The tree to store words
-    private BSTree<Word> tree;
+    // The index to store words
+    private WordIndex index;
+    // The kind of index to use
+    private final Index kind;
+    // About how many words the hot word cache holds, or zero for no cache
+    private final int cacheSize;
+    // The hot word cache in front of the index, if there is one
+    private HotWordCache cache;
+    // What is known of each source in the index, by name
+    private HashMap<String, Source> manifest = new HashMap<String, Source>();
+    // How many files the manifest let updates skip, copy or read again
+    private int filesSkipped;
+    private int filesCopied;
+    private int filesReread;
+    // The charset files are read in
+    private final Charset charset;
+    // Whether files in the charset can be split into words straight from
+    // their bytes, without decoding them
+    private final boolean asciiBytes;
     // File to save the repository
     private static final String REPO_FILE = "repository.ser";
+    // How many times taller than balanced a tree may be before it is rebuilt
+    private static final double MAX_HEIGHT_RATIO = 2.0;
+    // About how many words the hot word cache holds by default
+    private static final int DEFAULT_CACHE_SIZE = 1024;
+    // The smallest part of a file worth giving a worker of its own
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    // The largest part of a file to map at once, leaving room below the
+    // 2 GiB limit of a mapping for the chunk to reach the next line break
+    private static final long MAX_CHUNK_SIZE = 1 << 30;
+    // The input that stands for standard input on the command line
+    private static final String STDIN = "-";
+    // The source name given to standard input by default
+    private static final String STDIN_SOURCE = "stdin";
+    // Lines read from standard input between saves by default
+    private static final long DEFAULT_CHECKPOINT_LINES = 100000;
+    // Seconds between saves while reading standard input by default
+    private static final long DEFAULT_CHECKPOINT_SECONDS = 60;
+    // The bytes read at a time from a file when splitting it into words
+    // straight from its bytes, which grows to hold any longer line
+    private static final int READ_BUFFER_SIZE = 1 << 16;
     private static final long serialVersionUID = 1L;
 
     /**
@@ -23,6 +86,8 @@ public class WordTracker {
         private static final long serialVersionUID = 1L;
         // The actual word
         private String word;
+        // The first characters of the word packed for quick comparisons
+        private transient long prefix;
         // Store file names and line numbers
         private HashMap<String, ArrayList<Integer>> fileLines;
 
@@ -31,13 +96,70 @@ public class WordTracker {
          */
         public Word(String w) {
             word = w.toLowerCase();
+            prefix = KeyPrefix.of(word);
             fileLines = new HashMap<String, ArrayList<Integer>>();
         }
 
+        /**
+         * Constructor for a word that is already normalized, sharing the
+         * given occurrences
+         */
+        public Word(String w, HashMap<String, ArrayList<Integer>> lines) {
+            word = w;
+            prefix = KeyPrefix.of(word);
+            fileLines = lines;
+        }
+
+        /**
+         * Copy this word and its occurrences, so the copy can change
+         * without affecting this word
+         */
+        public Word copy() {
+            Word result = new Word(word);
+            for (String file : fileLines.keySet()) {
+                result.fileLines.put(file, new ArrayList<Integer>(fileLines.get(file)));
+            }
+            return result;
+        }
+
+        /**
+         * Combine two entries for the same word into a new word holding the
+         * occurrences of both
+         */
+        public static Word union(Word first, Word second) {
+            Word result = first.copy();
+            for (String file : second.fileLines.keySet()) {
+                ArrayList<Integer> lines = result.fileLines.get(file);
+                if (lines == null) {
+                    result.fileLines.put(file, new ArrayList<Integer>(second.fileLines.get(file)));
+                    continue;
+                }
+                
+                // Add the other lines, then sort and drop duplicates
+                lines.addAll(second.fileLines.get(file));
+                Collections.sort(lines);
+                int kept = 0;
+                for (int i = 0; i < lines.size(); i++) {
+                    if (kept == 0 || !lines.get(i).equals(lines.get(kept - 1))) {
+                        lines.set(kept++, lines.get(i));
+                    }
+                }
+                lines.subList(kept, lines.size()).clear();
+            }
+            return result;
+        }
+
         /**
          * Add a new occurrence
          */
         public void addOccurrence(String file, int line) {
+            addOccurrence(fileLines, file, line);
+        }
+
+        /**
+         * Add a new occurrence to the occurrences of a word
+         */
+        public static void addOccurrence(HashMap<String, ArrayList<Integer>> fileLines, String file, int line) {
             // Check if file exists in map
             if (fileLines.containsKey(file) == false) {
                 // Create new list for this file
@@ -48,18 +170,17 @@ public class WordTracker {
             // Get the lines list
             ArrayList<Integer> lines = fileLines.get(file);
             
-            // Check if line already exists
-            boolean exists = false;
-            for (int i = 0; i < lines.size(); i++) {
-                if (lines.get(i) == line) {
-                    exists = true;
-                    break;
-                }
-            }
-            
-            // Add line if it doesn't exist
-            if (exists == false) {
+            // Lines arrive in order while a file is read, so only a line
+            // before the last needs a search to keep the list sorted and
+            // free of repeats
+            int last = lines.size() - 1;
+            if (last < 0 || lines.get(last) < line) {
                 lines.add(line);
+            } else if (lines.get(last) != line) {
+                int found = Collections.binarySearch(lines, line);
+                if (found < 0) {
+                    lines.add(-found - 1, line);
+                }
             }
         }
 
@@ -92,11 +213,27 @@ public class WordTracker {
         }
 
         /**
-         * Compare words alphabetically
+         * Compare words alphabetically, settling most comparisons on the
+         * packed prefixes alone
          */
         @Override
         public int compareTo(Word other) {
-            return this.word.compareTo(other.word);
+            return KeyPrefix.compare(word, prefix, other.word, other.prefix);
+        }
+
+        /**
+         * Compare a word that has no Word yet with this one
+         */
+        public int compareFrom(String w, long wPrefix) {
+            return KeyPrefix.compare(w, wPrefix, word, prefix);
+        }
+
+        /**
+         * Restore the packed prefix, which is not saved
+         */
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            prefix = KeyPrefix.of(word);
         }
 
         /**
@@ -145,10 +282,9 @@ public class WordTracker {
                 String file = files.get(i);
                 result = result + file + " (lines ";
                 
-                // Get lines for this file
-                ArrayList<Integer> lines = fileLines.get(file);
-                
-                // Sort lines
+                // Get a sorted copy of the lines for this file, leaving the
+                // word itself untouched so reports can read snapshots
+                ArrayList<Integer> lines = new ArrayList<Integer>(fileLines.get(file));
                 Collections.sort(lines);
                 
                 // Add lines to result
@@ -188,10 +324,9 @@ public class WordTracker {
                 String file = files.get(i);
                 result = result + file + " (lines ";
                 
-                // Get lines for this file
-                ArrayList<Integer> lines = fileLines.get(file);
-                
-                // Sort lines
+                // Get a sorted copy of the lines for this file, leaving the
+                // word itself untouched so reports can read snapshots
+                ArrayList<Integer> lines = new ArrayList<Integer>(fileLines.get(file));
                 Collections.sort(lines);
                 
                 // Add lines to result
@@ -213,247 +348,1607 @@ public class WordTracker {
     }
 
     /**
-     * Constructor
+     * Ways to index the tracked words
      */
-    public WordTracker() {
-        // Create a new tree
-        tree = new BSTree<Word>();
-        
-        // Load repository if it exists
-        loadRepo();
+    public enum Index {
+        // Self-balancing tree of words
+        TREE,
+        // Compressed trie keyed by the words, storing shared prefixes once
+        TRIE,
+        // Hash map of words, sorted only when the words are read in order
+        HASH
     }
 
     /**
-     * Load repository from file
+     * Index from each word to its occurrences
      */
-    @SuppressWarnings("unchecked")
-    private void loadRepo() {
-        // Check if file exists
-        File f = new File(REPO_FILE);
-        if (f.exists()) {
-            // Try to load the file
-            try {
-                // Create input stream
-                FileInputStream fis = new FileInputStream(f);
-                ObjectInputStream ois = new ObjectInputStream(fis);
-                
-                // Read the tree
-                tree = (BSTree<Word>) ois.readObject();
-                
-                // Close streams
-                ois.close();
-                fis.close();
-                
-                System.out.println("Repository loaded from " + REPO_FILE);
-            } catch (Exception e) {
-                // Print error
-                System.out.println("Error loading repository: " + e.getMessage());
-                
-                // Create new tree
-                tree = new BSTree<Word>();
-            }
+    private interface WordIndex {
+        // The occurrences of a normalized word, added if it is new, which
+        // may be changed until the words are next read
+        HashMap<String, ArrayList<Integer>> occurrences(String word);
+
+        // The occurrences of the current word of a tokenizer, the same as
+        // for its word as a String
+        default HashMap<String, ArrayList<Integer>> occurrences(WordTokenizer token) {
+            return occurrences(token.word());
         }
+
+        // The words in alphabetical order, as a parallel stream that must
+        // be read before the index next changes
+        Stream<Word> words();
+
+        // The words in alphabetical order as they are now, as a parallel
+        // stream that later changes to the index do not affect
+        Stream<Word> snapshot();
+
+        // Add the words that start with a normalized prefix to a list, in
+        // alphabetical order
+        void findWordsWithPrefix(String prefix, ArrayList<String> result);
+
+        // The words as a tree, which is how the repository is saved
+        BSTree<Word> toTree();
+
+        // Describe the size and shape of the index, one fact per line
+        String diagnostics();
     }
 
     /**
-     * Save repository to file
+     * Copy words and their occurrences in parallel, for an index that
+     * cannot share them with a snapshot
      */
-    private void saveRepo() {
-        try {
-            // Create output stream
-            FileOutputStream fos = new FileOutputStream(REPO_FILE);
-            ObjectOutputStream oos = new ObjectOutputStream(fos);
-            
-            // Write the tree
-            oos.writeObject(tree);
-            
-            // Close streams
-            oos.close();
-            fos.close();
-            
-            System.out.println("Repository saved to " + REPO_FILE);
-        } catch (Exception e) {
-            // Print error
-            System.out.println("Error saving repository: " + e.getMessage());
-        }
+    private static Stream<Word> copies(List<Word> words) {
+        return words.parallelStream()
+                .map(Word::copy)
+                .collect(Collectors.toList())
+                .parallelStream();
     }
 
     /**
-     * Process a file
+     * Index that keeps the words in a self-balancing tree
      */
-    public void processFile(String filename) throws IOException {
-        // Check if file exists
-        File f = new File(filename);
-        if (!f.exists()) {
-            throw new IOException("File not found: " + filename);
+    private static class TreeIndex implements WordIndex {
+        private final BSTree<Word> tree;
+
+        public TreeIndex(BSTree<Word> words) {
+            tree = words;
         }
 
-        // Open file
-        FileReader fr = new FileReader(f);
-        BufferedReader br = new BufferedReader(fr);
-        
-        // Read file line by line
-        String line;
-        int lineNum = 1;
-        while ((line = br.readLine()) != null) {
-            // Process this line
-            String[] words = line.split("\\s+");
+        @Override
+        public HashMap<String, ArrayList<Integer>> occurrences(String word) {
+            // Find the word in the tree, creating it only if it is new and
+            // copying it first if a report snapshot still shares it
+            long prefix = KeyPrefix.of(word);
+            BSTreeNode<Word> node = tree.getOrAdd(other -> other.compareFrom(word, prefix),
+                    () -> new Word(word), Word::copy);
+            return node.getElement().getFileLines();
+        }
+
+        @Override
+        public Stream<Word> words() {
+            return tree.parallelStream();
+        }
+
+        @Override
+        public Stream<Word> snapshot() {
+            // A snapshot lets ingestion continue while the words are read
+            return tree.snapshot().parallelStream();
+        }
+
+        @Override
+        public void findWordsWithPrefix(String prefix, ArrayList<String> result) {
+            // Words with the prefix sort between the prefix itself and the
+            // first string that is greater than every word with the prefix
+            Word from = new Word(prefix);
+            Word to = null;
+            int end = prefix.length();
+            while (end > 0 && prefix.charAt(end - 1) == Character.MAX_VALUE) {
+                end--;
+            }
+            if (end > 0) {
+                to = new Word(prefix.substring(0, end - 1) + (char) (prefix.charAt(end - 1) + 1));
+            }
             
-            // Process each word
-            for (int i = 0; i < words.length; i++) {
-                String w = words[i];
-                
-                // Remove punctuation
-                w = w.replaceAll("[^a-zA-Z0-9]", "").toLowerCase();
-                
-                // Skip empty words
-                if (w.length() == 0) {
-                    continue;
-                }
-                
-                // Create word object
-                Word word = new Word(w);
-                
-                // Check if word exists in tree
-                BSTreeNode<Word> node = tree.search(word);
-                
-                if (node == null) {
-                    // Word not found, add it
-                    word.addOccurrence(filename, lineNum);
-                    tree.add(word);
-                } else {
-                    // Word found, update it
-                    node.getElement().addOccurrence(filename, lineNum);
-                }
+            // Walk only the words in that range
+            Iterator<Word> it = tree.inorderIterator(from, true, to, false);
+            while (it.hasNext()) {
+                result.add(it.next().getWord());
+            }
+        }
+
+        @Override
+        public BSTree<Word> toTree() {
+            return tree;
+        }
+
+        @Override
+        public String diagnostics() {
+            String result = "Index: tree of " + tree.size() + " words\n";
+            result = result + String.format("Height: %d (%.2f times balanced), average depth %.2f%n",
+                    tree.getHeight(), tree.getHeightRatio(), tree.getAverageDepth());
+            
+            // Add the number of words at each depth
+            result = result + "Words by depth:";
+            int[] histogram = tree.depthHistogram();
+            for (int depth = 0; depth < histogram.length; depth++) {
+                result = result + " " + histogram[depth];
             }
+            result = result + "\n";
             
-            // Increment line number
-            lineNum++;
+            result = result + String.format("Lookups: %d, %d of them new words, %.2f comparisons each%n",
+                    tree.getAddCount(), tree.getInsertCount(), perCall(tree.getAddComparisons(), tree.getAddCount()));
+            result = result + String.format("Searches: %d, %.2f comparisons each%n", tree.getSearchCount(),
+                    perCall(tree.getSearchComparisons(), tree.getSearchCount()));
+            return result;
         }
-        
-        // Close file
-        br.close();
-        fr.close();
-        
-        // Save repository
-        saveRepo();
-    }
 
-    /**
-     * Generate file report
-     */
-    public String makeFileReport() {
-        // Create report header
-        String report = "Word Tracker Report (Files Only)\n";
-        report = report + "==============================\n\n";
-        
-        // Get iterator
-        Iterator<Word> it = tree.inorderIterator();
-        
-        // Process all words
-        while (it.hasNext()) {
-            Word w = it.next();
-            report = report + w.formatWithFiles() + "\n";
+        // The average of a total over a number of calls
+        private static double perCall(long total, long calls) {
+            return calls == 0 ? 0 : (double) total / calls;
         }
-        
-        return report;
     }
 
     /**
-     * Generate line report
+     * Index that keeps the occurrences in a compressed trie keyed by the
+     * words, so words are never stored or compared as whole strings while
+     * files are read. The index must not change while its words are read.
      */
-    public String makeLineReport() {
-        // Create report header
-        String report = "Word Tracker Report (Files and Lines)\n";
-        report = report + "===================================\n\n";
-        
-        // Get iterator
-        Iterator<Word> it = tree.inorderIterator();
-        
-        // Process all words
-        while (it.hasNext()) {
-            Word w = it.next();
-            report = report + w.formatWithLines() + "\n";
+    private static class TrieIndex implements WordIndex {
+        private final RadixTrie<HashMap<String, ArrayList<Integer>>> trie = new RadixTrie<>();
+
+        public TrieIndex(BSTree<Word> words) {
+            words.forEachInorder(w -> trie.put(w.getWord(), w.getFileLines()));
         }
-        
-        return report;
-    }
 
-    /**
-     * Generate occurrence report
-     */
-    public String makeOccurrenceReport() {
-        // Create report header
-        String report = "Word Tracker Report (Files, Lines, and Occurrences)\n";
-        report = report + "=================================================\n\n";
-        
-        // Get iterator
-        Iterator<Word> it = tree.inorderIterator();
-        
-        // Process all words
-        while (it.hasNext()) {
-            Word w = it.next();
-            report = report + w.formatWithOccurrences() + "\n";
+        @Override
+        public HashMap<String, ArrayList<Integer>> occurrences(String word) {
+            return trie.getOrAdd(word, HashMap::new);
         }
-        
-        return report;
-    }
 
-    /**
-     * Write report to file
-     */
-    public void writeReport(String report, String filename) throws IOException {
-        // Create file writer
-        FileWriter fw = new FileWriter(filename);
-        PrintWriter pw = new PrintWriter(fw);
-        
-        // Write report
-        pw.print(report);
-        
-        // Close file
-        pw.close();
-        fw.close();
-        
-        System.out.println("Report written to " + filename);
+        @Override
+        public Stream<Word> words() {
+            return list().parallelStream();
+        }
+
+        @Override
+        public Stream<Word> snapshot() {
+            return copies(list());
+        }
+
+        @Override
+        public void findWordsWithPrefix(String prefix, ArrayList<String> result) {
+            trie.forEachWithPrefix(prefix, (w, lines) -> result.add(w));
+        }
+
+        @Override
+        public BSTree<Word> toTree() {
+            return BSTree.fromSorted(list().toArray(new Word[0]), true);
+        }
+
+        @Override
+        public String diagnostics() {
+            return "Index: trie of " + trie.size() + " words\n";
+        }
+
+        // The words in alphabetical order, sharing the occurrences in the trie
+        private ArrayList<Word> list() {
+            ArrayList<Word> words = new ArrayList<Word>(trie.size());
+            trie.forEach((w, lines) -> words.add(new Word(w, lines)));
+            return words;
+        }
     }
 
     /**
-     * Print report to console
+     * Index that gathers the words in a hash map while files are read and
+     * sorts them only when they are needed in order, for a report or a save.
+     * Adding an occurrence costs no comparisons, but finding words with a
+     * prefix scans every word. The index must not change while its words are
+     * read.
      */
-    public void printReport(String report) {
-        System.out.println(report);
+    private static class HashIndex implements WordIndex {
+        private final HashMap<String, HashMap<String, ArrayList<Integer>>> map =
+                new HashMap<String, HashMap<String, ArrayList<Integer>>>();
+        // The words in alphabetical order, or null if words were added since
+        // they were last sorted
+        private ArrayList<Word> sorted;
+
+        public HashIndex(BSTree<Word> words) {
+            words.forEachInorder(w -> map.put(w.getWord(), w.getFileLines()));
+        }
+
+        @Override
+        public HashMap<String, ArrayList<Integer>> occurrences(String word) {
+            HashMap<String, ArrayList<Integer>> lines = map.get(word);
+            if (lines == null) {
+                lines = new HashMap<String, ArrayList<Integer>>();
+                map.put(word, lines);
+                sorted = null;
+            }
+            return lines;
+        }
+
+        @Override
+        public Stream<Word> words() {
+            return sorted().parallelStream();
+        }
+
+        @Override
+        public Stream<Word> snapshot() {
+            return copies(sorted());
+        }
+
+        @Override
+        public void findWordsWithPrefix(String prefix, ArrayList<String> result) {
+            int start = result.size();
+            for (String w : map.keySet()) {
+                if (w.startsWith(prefix)) {
+                    result.add(w);
+                }
+            }
+            Collections.sort(result.subList(start, result.size()));
+        }
+
+        @Override
+        public BSTree<Word> toTree() {
+            return BSTree.fromSorted(sorted().toArray(new Word[0]), true);
+        }
+
+        @Override
+        public String diagnostics() {
+            return "Index: hash map of " + map.size() + " words\n";
+        }
+
+        // The words in alphabetical order, sharing the occurrences in the map
+        private ArrayList<Word> sorted() {
+            if (sorted == null) {
+                Word[] words = new Word[map.size()];
+                int i = 0;
+                for (Map.Entry<String, HashMap<String, ArrayList<Integer>>> entry : map.entrySet()) {
+                    words[i++] = new Word(entry.getKey(), entry.getValue());
+                }
+                
+                // Sort once, on all cores
+                Arrays.parallelSort(words);
+                sorted = new ArrayList<Word>(Arrays.asList(words));
+            }
+            return sorted;
+        }
     }
 
     /**
-     * Main method
+     * Direct-mapped cache in front of another index that remembers the
+     * occurrences of recently seen words, so the frequent words of a text
+     * skip the index lookup. Each word can only sit in one slot, picked by
+     * its hash, and evicts whatever word was there. The cache is emptied
+     * whenever a snapshot is taken, because a tree index may copy a word
+     * shared with a snapshot on its next lookup.
      */
-    public static void main(String[] args) {
-        // Check arguments
-        if (args.length < 2) {
-            showUsage();
-            return;
+    private static class HotWordCache implements WordIndex {
+        private final WordIndex index;
+        private final String[] words;
+        private final HashMap<String, ArrayList<Integer>>[] lines;
+        private final int mask;
+        private long hits;
+        private long lookups;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        public HotWordCache(WordIndex behind, int size) {
+            index = behind;
+            // Round the size up to a power of two, so a mask picks the slot
+            int slots = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+            words = new String[slots];
+            lines = new HashMap[slots];
+            mask = slots - 1;
         }
 
-        // Get input file and report option
-        String inFile = args[0];
-        String option = args[1];
-        String outFile = null;
+        @Override
+        public HashMap<String, ArrayList<Integer>> occurrences(String word) {
+            lookups++;
+            int hash = word.hashCode();
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            if (word.equals(words[slot])) {
+                hits++;
+                return lines[slot];
+            }
+            HashMap<String, ArrayList<Integer>> found = index.occurrences(word);
+            words[slot] = word;
+            lines[slot] = found;
+            return found;
+        }
 
-        // Check for output file
-        if (args.length > 2) {
-            if (args[2].startsWith("-f")) {
-                outFile = args[2].substring(2);
-                outFile = outFile + ".txt";
-                System.out.println("Output will be redirected to: " + outFile);
+        @Override
+        public HashMap<String, ArrayList<Integer>> occurrences(WordTokenizer token) {
+            // Only create a String for the word when it misses the cache
+            int hash = token.hash();
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            if (token.matches(words[slot])) {
+                lookups++;
+                hits++;
+                return lines[slot];
             }
+            return occurrences(token.word());
         }
 
-        try {
+        @Override
+        public Stream<Word> words() {
+            return index.words();
+        }
+
+        @Override
+        public Stream<Word> snapshot() {
+            clear();
+            return index.snapshot();
+        }
+
+        @Override
+        public void findWordsWithPrefix(String prefix, ArrayList<String> result) {
+            index.findWordsWithPrefix(prefix, result);
+        }
+
+        @Override
+        public BSTree<Word> toTree() {
+            clear();
+            return index.toTree();
+        }
+
+        @Override
+        public String diagnostics() {
+            return String.format("Hot word cache: %d slots, %.1f%% of %d lookups hit%n", words.length,
+                    lookups == 0 ? 0 : 100.0 * hits / lookups, lookups) + index.diagnostics();
+        }
+
+        // Forget every cached word
+        private void clear() {
+            Arrays.fill(words, null);
+            Arrays.fill(lines, null);
+        }
+    }
+
+    /**
+     * What the manifest records about a source in the index, to tell
+     * whether its contents have changed since. A source whose contents are
+     * not known, such as a stream or a file in a repository saved before
+     * there was a manifest, has no hash and always counts as changed.
+     */
+    private static class Source implements Serializable {
+        private static final long serialVersionUID = 1L;
+        // A source whose contents are not known
+        public static final Source UNKNOWN = new Source(-1, -1, null);
+        // The size of the file in bytes
+        private final long size;
+        // When the file was last modified, in milliseconds since the epoch
+        private final long modified;
+        // The SHA-256 hash of the contents in hex, or null if not known
+        private final String hash;
+
+        public Source(long size, long modified, String hash) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+
+        /**
+         * Read the size and modification time of a file and hash its
+         * contents
+         */
+        public static Source of(File f) throws IOException {
+            long size = f.length();
+            long modified = f.lastModified();
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+            try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+                while (channel.read(buffer) >= 0) {
+                    buffer.flip();
+                    digest.update(buffer);
+                    buffer.clear();
+                }
+            }
+            return new Source(size, modified, String.format("%064x", new BigInteger(1, digest.digest())));
+        }
+
+        /**
+         * Check if a file still has the size and modification time
+         * recorded, and the contents are known
+         */
+        public boolean matches(File f) {
+            return hash != null && size == f.length() && modified == f.lastModified();
+        }
+
+        /**
+         * Check if another source is known to have the same contents
+         */
+        public boolean sameContents(Source other) {
+            return hash != null && hash.equals(other.hash);
+        }
+    }
+
+    /**
+     * Something that adds the words of a list of files to the index
+     */
+    private interface FileIndexer {
+        void index(List<String> filenames) throws IOException;
+    }
+
+    /**
+     * Saves the repository while a stream is read, once enough lines have
+     * been indexed since the last save or enough time has passed since it.
+     * Lines are counted as the reading thread indexes them, and the time is
+     * also checked on a timer, so lines read just before the stream goes
+     * quiet are still saved. Everything runs under the tracker's lock.
+     */
+    private class Checkpoints {
+        // Lines to index between saves, or zero for no limit
+        private final long everyLines;
+        // Milliseconds between saves, or zero for no limit
+        private final long everyMillis;
+        // Lines indexed since the last save
+        private long lines;
+        // When the last save was, from System.nanoTime
+        private long saved = System.nanoTime();
+
+        public Checkpoints(long everyLines, long everyMillis) {
+            this.everyLines = everyLines;
+            this.everyMillis = everyMillis;
+        }
+
+        // Count lines just indexed, saving if enough have been
+        public void indexed(int count) {
+            synchronized (WordTracker.this) {
+                lines += count;
+                if (everyLines > 0 && lines >= everyLines) {
+                    save();
+                } else {
+                    saveIfDue();
+                }
+            }
+        }
+
+        // Save if anything has been indexed and the time is up
+        public void saveIfDue() {
+            synchronized (WordTracker.this) {
+                if (lines > 0 && everyMillis > 0
+                        && System.nanoTime() - saved >= TimeUnit.MILLISECONDS.toNanos(everyMillis)) {
+                    save();
+                }
+            }
+        }
+
+        private void save() {
+            saveRepo();
+            lines = 0;
+            saved = System.nanoTime();
+        }
+    }
+
+    /**
+     * Constructor
+     */
+    public WordTracker() {
+        this(Index.TREE);
+    }
+
+    /**
+     * Constructor for a tracker using the given kind of index
+     */
+    public WordTracker(Index kind) {
+        this(kind, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructor for a tracker using the given kind of index, with a cache
+     * of about the given number of frequent words in front of it, or none if
+     * the size is zero
+     */
+    public WordTracker(Index kind, int cacheSize) {
+        this(kind, cacheSize, Charset.defaultCharset());
+    }
+
+    /**
+     * Constructor for a tracker using the given kind of index and cache
+     * size, which reads files in the given charset
+     */
+    public WordTracker(Index kind, int cacheSize, Charset charset) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Illegal cache size: " + cacheSize);
+        }
+        if (charset == null) {
+            throw new NullPointerException("The charset cannot be null.");
+        }
+        this.kind = kind;
+        this.cacheSize = cacheSize;
+        this.charset = charset;
+        this.asciiBytes = isAsciiBytes(charset);
+        
+        // Load repository if it exists
+        loadRepo();
+    }
+
+    /**
+     * Constructor for an empty tracker with the same settings as another,
+     * which does not load the repository, for one worker to fill
+     */
+    private WordTracker(WordTracker settings) {
+        this.kind = settings.kind;
+        this.cacheSize = settings.cacheSize;
+        this.charset = settings.charset;
+        this.asciiBytes = settings.asciiBytes;
+        index = newIndex(new BSTree<Word>(true));
+    }
+
+    /**
+     * Create an index of the configured kind holding the words of a tree
+     */
+    private WordIndex newIndex(BSTree<Word> words) {
+        WordIndex created;
+        if (kind == Index.TRIE) {
+            created = new TrieIndex(words);
+        } else if (kind == Index.HASH) {
+            created = new HashIndex(words);
+        } else {
+            created = new TreeIndex(words);
+        }
+        
+        // Put the hot word cache in front if there is one, keeping the
+        // counts of any cache it replaces
+        if (cacheSize == 0) {
+            return created;
+        }
+        HotWordCache previous = cache;
+        cache = new HotWordCache(created, cacheSize);
+        if (previous != null) {
+            cache.hits = previous.hits;
+            cache.lookups = previous.lookups;
+        }
+        return cache;
+    }
+
+    /**
+     * Get the number of word lookups the hot word cache has answered
+     */
+    public long getCacheHits() {
+        return cache == null ? 0 : cache.hits;
+    }
+
+    /**
+     * Get the number of word lookups made through the hot word cache
+     */
+    public long getCacheLookups() {
+        return cache == null ? 0 : cache.lookups;
+    }
+
+    /**
+     * Get the share of word lookups the hot word cache has answered, from
+     * 0 to 1
+     */
+    public double getCacheHitRate() {
+        long lookups = getCacheLookups();
+        return lookups == 0 ? 0 : (double) getCacheHits() / lookups;
+    }
+
+    /**
+     * Load repository from file
+     */
+    @SuppressWarnings("unchecked")
+    private void loadRepo() {
+        // Start with an empty self-balancing tree
+        BSTree<Word> tree = new BSTree<Word>(true);
+        
+        // Check if file exists
+        File f = new File(REPO_FILE);
+        if (f.exists()) {
+            // Try to load the file
+            try {
+                // Create input stream
+                FileInputStream fis = new FileInputStream(f);
+                ObjectInputStream ois = new ObjectInputStream(fis);
+                
+                // Read the tree, rebuilding one saved before balanced trees
+                // as a self-balancing tree, or rebalancing it if it was
+                // saved lopsided
+                tree = (BSTree<Word>) ois.readObject();
+                if (!tree.isBalanced()) {
+                    tree = BSTree.fromSorted(tree.inorderIterator(), true);
+                } else {
+                    tree.rebalanceIfTaller(MAX_HEIGHT_RATIO);
+                }
+                
+                // Read the manifest saved after the tree, if there is one
+                try {
+                    manifest = (HashMap<String, Source>) ois.readObject();
+                } catch (EOFException | OptionalDataException e) {
+                    manifest = null;
+                }
+                
+                // Close streams
+                ois.close();
+                fis.close();
+                
+                System.out.println("Repository loaded from " + REPO_FILE);
+            } catch (Exception e) {
+                // Print error
+                System.out.println("Error loading repository: " + e.getMessage());
+                
+                // Create new tree
+                tree = new BSTree<Word>(true);
+                manifest = new HashMap<String, Source>();
+            }
+        }
+        
+        // Index the loaded words
+        index = newIndex(tree);
+        
+        // Without a manifest, nothing is known about the files in the
+        // index, so each is read again in full the next time it is given
+        if (manifest == null) {
+            manifest = new HashMap<String, Source>();
+            index.words()
+                    .flatMap(word -> word.fileLines.keySet().stream())
+                    .distinct()
+                    .forEachOrdered(file -> manifest.put(file, Source.UNKNOWN));
+        }
+    }
+
+    /**
+     * Save repository to file
+     */
+    private void saveRepo() {
+        try {
+            // Create output stream
+            FileOutputStream fos = new FileOutputStream(REPO_FILE);
+            ObjectOutputStream oos = new ObjectOutputStream(fos);
+            
+            // Write the tree, rebuilding it first if it has grown lopsided
+            BSTree<Word> tree = index.toTree();
+            tree.rebalanceIfTaller(MAX_HEIGHT_RATIO);
+            oos.writeObject(tree);
+            
+            // Write the manifest after it, where older versions ignore it
+            oos.writeObject(manifest);
+            
+            // Close streams
+            oos.close();
+            fos.close();
+            
+            System.out.println("Repository saved to " + REPO_FILE);
+        } catch (Exception e) {
+            // Print error
+            System.out.println("Error saving repository: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Process a file and save the repository, skipping the file if the
+     * manifest shows it has not changed
+     */
+    public void processFile(String filename) throws IOException {
+        boolean updated = update(Collections.singletonList(filename), 1, files -> {
+            for (String file : files) {
+                indexFile(file);
+            }
+        });
+        
+        // Save repository if anything changed
+        if (updated) {
+            saveRepo();
+        }
+    }
+
+    /**
+     * Add the words of a file to the index without saving the repository.
+     * Files in a charset whose ASCII characters are single bytes are split
+     * into words straight from their bytes; any other charset is decoded.
+     */
+    public void indexFile(String filename) throws IOException {
+        // Check if file exists
+        File f = new File(filename);
+        if (!f.exists()) {
+            throw new IOException("File not found: " + filename);
+        }
+        
+        // Read the bytes if they need no decoding
+        if (asciiBytes) {
+            try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+                indexChannel(channel, filename, null);
+            }
+            return;
+        }
+
+        // Open file
+        FileInputStream fis = new FileInputStream(f);
+        BufferedReader br = new BufferedReader(new InputStreamReader(fis, charset));
+        
+        // Read file line by line
+        indexLines(br, filename, null);
+        
+        // Close file
+        br.close();
+        fis.close();
+    }
+
+    /**
+     * Add the words of the lines of decoded text to the index, telling an
+     * optional listener after each line
+     */
+    private void indexLines(BufferedReader br, String filename, Checkpoints checkpoints) throws IOException {
+        String line;
+        int lineNum = 1;
+        WordTokenizer tokenizer = new WordTokenizer();
+        while ((line = br.readLine()) != null) {
+            // Record each word of this line, out of the way of any query
+            synchronized (this) {
+                tokenizer.reset(line);
+                while (tokenizer.next()) {
+                    Word.addOccurrence(index.occurrences(tokenizer), filename, lineNum);
+                }
+            }
+            
+            // Increment line number
+            lineNum++;
+            if (checkpoints != null) {
+                checkpoints.indexed(1);
+            }
+        }
+    }
+
+    /**
+     * Add the words of text read from a channel in a charset whose ASCII
+     * characters are single bytes to the index, telling an optional listener
+     * after each read. The bytes are read into a direct buffer, and only an
+     * unfinished line at the end of the buffer is carried over to the next
+     * read.
+     */
+    private void indexChannel(ReadableByteChannel channel, String filename, Checkpoints checkpoints)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        int lineNum = 1;
+        boolean more = true;
+        while (more) {
+            more = channel.read(buffer) >= 0;
+            
+            // Index the complete lines, and every line at the end, out of
+            // the way of any query
+            int end = more ? afterLastLineBreak(buffer, buffer.position()) : buffer.position();
+            int firstLine = lineNum;
+            synchronized (this) {
+                lineNum = indexBytes(buffer, end, filename, lineNum);
+            }
+            if (checkpoints != null && lineNum > firstLine) {
+                checkpoints.indexed(lineNum - firstLine);
+            }
+            
+            // Move the unfinished line to the front, growing the buffer if
+            // the line fills it
+            buffer.flip();
+            buffer.position(end);
+            buffer.compact();
+            if (!buffer.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+
+    /**
+     * Find the position after the last line break before a position in a
+     * buffer, or 0 if there is none. A carriage return just before the
+     * position does not count, as a line feed may follow it.
+     */
+    private static int afterLastLineBreak(ByteBuffer bytes, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            byte b = bytes.get(i);
+            if (b == '\n' || (b == '\r' && i < end - 1)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Process a file, reading up to the given number of chunks of it in
+     * parallel, and save the repository, skipping the file if the manifest
+     * shows it has not changed
+     */
+    public void processFile(String filename, int chunks) throws IOException {
+        boolean updated = update(Collections.singletonList(filename), chunks, files -> {
+            for (String file : files) {
+                indexFile(file, chunks);
+            }
+        });
+        
+        // Save repository if anything changed
+        if (updated) {
+            saveRepo();
+        }
+    }
+
+    /**
+     * Add the words of a file to the index without saving the repository,
+     * reading up to the given number of chunks of it in parallel. The file
+     * is mapped into memory and split after line breaks. The line breaks of
+     * every chunk are counted in parallel to find the line each chunk starts
+     * on, then each chunk is indexed into a tracker of its own and these are
+     * merged into the index, giving the same line numbers as reading the file
+     * in one go. A file whose charset cannot be read a byte at a time is read
+     * on one thread.
+     */
+    public void indexFile(String filename, int chunks) throws IOException {
+        if (chunks < 1) {
+            throw new IllegalArgumentException("Illegal number of chunks: " + chunks);
+        }
+        if (chunks == 1 || !asciiBytes) {
+            indexFile(filename);
+            return;
+        }
+        
+        // Check if file exists
+        File f = new File(filename);
+        if (!f.exists()) {
+            throw new IOException("File not found: " + filename);
+        }
+
+        // Map each chunk, ending every one but the last after a line break
+        List<ByteBuffer> parts = new ArrayList<ByteBuffer>();
+        try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            int count = (int) Math.max(chunks, (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+            long start = 0;
+            for (int i = 1; i <= count && start < size; i++) {
+                long end = i == count ? size : afterLineBreak(channel, Math.max(start, size / count * i));
+                if (end > start) {
+                    parts.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+                }
+                start = end;
+            }
+        }
+        if (parts.isEmpty()) {
+            return;
+        }
+
+        // Count the lines in each chunk to find the line the next starts on
+        List<Callable<Integer>> counting = new ArrayList<Callable<Integer>>();
+        for (ByteBuffer part : parts) {
+            counting.add(() -> countLines(part));
+        }
+        List<Integer> lines = runAll(counting, chunks);
+
+        // Index every chunk from its first line
+        List<Callable<WordTracker>> indexing = new ArrayList<Callable<WordTracker>>();
+        int firstLine = 1;
+        for (int i = 0; i < parts.size(); i++) {
+            ByteBuffer part = parts.get(i);
+            int lineNum = firstLine;
+            indexing.add(() -> {
+                WordTracker partial = new WordTracker(this);
+                partial.indexBytes(part, part.limit(), filename, lineNum);
+                return partial;
+            });
+            firstLine += lines.get(i);
+        }
+        mergeAll(runAll(indexing, chunks));
+    }
+
+    /**
+     * Add the words of lines held as bytes before a position in a buffer to
+     * the index, numbering the lines from the given line, and return the
+     * number of the line after them. Lines end at a line feed, a carriage
+     * return or both, as for BufferedReader.readLine.
+     */
+    private int indexBytes(ByteBuffer bytes, int end, String filename, int firstLine) {
+        WordTokenizer tokenizer = new WordTokenizer();
+        int lineNum = firstLine;
+        int start = 0;
+        int i = 0;
+        while (i < end) {
+            byte b = bytes.get(i++);
+            if (b != '\n' && b != '\r') {
+                continue;
+            }
+            
+            // Record each word of this line
+            tokenizer.reset(bytes, start, i - 1);
+            while (tokenizer.next()) {
+                Word.addOccurrence(index.occurrences(tokenizer), filename, lineNum);
+            }
+            
+            // Move past the line break
+            if (b == '\r' && i < end && bytes.get(i) == '\n') {
+                i++;
+            }
+            start = i;
+            lineNum++;
+        }
+        
+        // Record the last line if it has no line break
+        tokenizer.reset(bytes, start, end);
+        while (tokenizer.next()) {
+            Word.addOccurrence(index.occurrences(tokenizer), filename, lineNum);
+        }
+        return lineNum;
+    }
+
+    /**
+     * Count the line breaks held as bytes, taking a carriage return and line
+     * feed together as one
+     */
+    private static int countLines(ByteBuffer bytes) {
+        int lines = 0;
+        int end = bytes.limit();
+        for (int i = 0; i < end; i++) {
+            byte b = bytes.get(i);
+            if (b == '\n') {
+                lines++;
+            } else if (b == '\r' && (i + 1 == end || bytes.get(i + 1) != '\n')) {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Find the position just after the first line feed at or after a
+     * position in a file, or the end of the file if there is none
+     */
+    private static long afterLineBreak(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long size = channel.size();
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Check whether text in a charset can be split into words a byte at a
+     * time: it must be UTF-8, or encode each character as one byte with the
+     * bytes below 0x80 being ASCII and no others decoding to ASCII
+     */
+    private static boolean isAsciiBytes(Charset charset) {
+        if (charset.name().equals("UTF-8")) {
+            return true;
+        }
+        if (!charset.canEncode() || charset.newEncoder().maxBytesPerChar() != 1) {
+            return false;
+        }
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try {
+            String text = decoder.decode(ByteBuffer.wrap(bytes)).toString();
+            if (text.length() != bytes.length) {
+                return false;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                char c = text.charAt(i);
+                if (i < 0x80 ? c != i : c < 0x80) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Read lines from a stream, such as standard input or a pipe, under a
+     * logical source name until it ends, saving the repository every given
+     * number of lines and every given number of milliseconds, where either
+     * may be zero for none, and once more at the end. Lines are numbered
+     * from 1 as in a file. The words are indexed a read at a time, and
+     * queries made on other threads meanwhile see every line indexed so far.
+     * The stream is not closed.
+     */
+    public void processStream(InputStream in, String source, long checkpointLines, long checkpointMillis)
+            throws IOException {
+        if (checkpointLines < 0 || checkpointMillis < 0) {
+            throw new IllegalArgumentException("Illegal checkpoint: " + checkpointLines + " lines, "
+                    + checkpointMillis + " ms");
+        }
+        if (in == null || source == null) {
+            throw new NullPointerException("The stream and source name cannot be null.");
+        }
+        
+        // The contents of a stream cannot be known ahead, so a file of the
+        // same name will be read again in full
+        synchronized (this) {
+            manifest.put(source, Source.UNKNOWN);
+        }
+        
+        // Check the time on a timer too, in case the stream goes quiet
+        Checkpoints checkpoints = new Checkpoints(checkpointLines, checkpointMillis);
+        ScheduledExecutorService timer = null;
+        if (checkpointMillis > 0) {
+            timer = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "WordTracker checkpoints");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.scheduleWithFixedDelay(checkpoints::saveIfDue, checkpointMillis, checkpointMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+        
+        // Read the stream as bytes if they need no decoding
+        try {
+            if (asciiBytes) {
+                indexChannel(Channels.newChannel(in), source, checkpoints);
+            } else {
+                indexLines(new BufferedReader(new InputStreamReader(in, charset)), source, checkpoints);
+            }
+        } finally {
+            if (timer != null) {
+                timer.shutdownNow();
+            }
+        }
+        
+        // Save repository
+        synchronized (this) {
+            saveRepo();
+        }
+    }
+
+    /**
+     * Bring the index up to date with some files, using the manifest to
+     * read as little as possible:
+     * - a file whose size and modification time are as recorded is skipped
+     *   without being opened;
+     * - the other files are hashed in parallel, and one whose contents
+     *   are as recorded is skipped too;
+     * - a file with the same contents as another source is given a copy of
+     *   that source's occurrences instead of being read;
+     * - the occurrences of a changed file are removed from the index before
+     *   the indexer reads it again, along with any new files.
+     * The manifest records every file once it is in the index. Returns
+     * whether anything changed that needs saving.
+     */
+    private boolean update(List<String> filenames, int threads, FileIndexer indexer) throws IOException {
+        // Skip files whose size and modification time are as recorded
+        List<String> unsure = new ArrayList<String>();
+        for (String filename : filenames) {
+            File f = new File(filename);
+            if (!f.exists()) {
+                throw new IOException("File not found: " + filename);
+            }
+            Source known = manifest.get(filename);
+            if (known == null || !known.matches(f)) {
+                unsure.add(filename);
+            }
+        }
+        int unchanged = filenames.size() - unsure.size();
+        if (unsure.isEmpty()) {
+            recordUpdate(unchanged, 0, 0);
+            return false;
+        }
+        
+        // Hash the rest in parallel
+        List<Callable<Source>> hashing = new ArrayList<Callable<Source>>();
+        for (String filename : unsure) {
+            hashing.add(() -> Source.of(new File(filename)));
+        }
+        List<Source> found = runAll(hashing, threads);
+        
+        // Skip files whose contents are as recorded, and drop the
+        // occurrences of those that have changed
+        HashMap<String, Source> updated = new LinkedHashMap<String, Source>();
+        HashSet<String> changed = new HashSet<String>();
+        for (int i = 0; i < unsure.size(); i++) {
+            Source known = manifest.get(unsure.get(i));
+            if (known != null && known.sameContents(found.get(i))) {
+                manifest.put(unsure.get(i), found.get(i));
+                unchanged++;
+                continue;
+            }
+            if (known != null) {
+                changed.add(unsure.get(i));
+            }
+            updated.put(unsure.get(i), found.get(i));
+        }
+        if (!changed.isEmpty()) {
+            rewrite(changed, Collections.<String, List<String>>emptyMap());
+        }
+        
+        // Copy the occurrences of files identical to a source in the index,
+        // or to a file read before them, and read the rest
+        HashMap<String, String> byContents = new HashMap<String, String>();
+        for (Map.Entry<String, Source> entry : manifest.entrySet()) {
+            if (entry.getValue().hash != null && !changed.contains(entry.getKey())) {
+                byContents.put(entry.getValue().hash, entry.getKey());
+            }
+        }
+        LinkedHashMap<String, List<String>> copies = new LinkedHashMap<String, List<String>>();
+        List<String> toRead = new ArrayList<String>();
+        int copied = 0;
+        for (Map.Entry<String, Source> entry : updated.entrySet()) {
+            String original = byContents.putIfAbsent(entry.getValue().hash, entry.getKey());
+            if (original == null) {
+                toRead.add(entry.getKey());
+            } else {
+                copies.computeIfAbsent(original, file -> new ArrayList<String>()).add(entry.getKey());
+                copied++;
+            }
+        }
+        indexer.index(toRead);
+        if (!copies.isEmpty()) {
+            rewrite(Collections.<String>emptySet(), copies);
+        }
+        
+        // Record the files now in the index
+        manifest.putAll(updated);
+        recordUpdate(unchanged, copied, changed.size());
+        return true;
+    }
+
+    /**
+     * Count what an update saved, for the diagnostics
+     */
+    private synchronized void recordUpdate(int unchanged, int copied, int changed) {
+        filesSkipped += unchanged;
+        filesCopied += copied;
+        filesReread += changed;
+    }
+
+    /**
+     * Rebuild the index in one pass over the words, removing the
+     * occurrences in some files and giving each file with copies the same
+     * occurrences under each copy's name
+     */
+    private synchronized void rewrite(Set<String> removed, Map<String, List<String>> copies) {
+        Word[] words = index.words()
+                .map(word -> rewrite(word, removed, copies))
+                .filter(Objects::nonNull)
+                .toArray(Word[]::new);
+        index = newIndex(BSTree.fromSorted(words, true));
+    }
+
+    /**
+     * Rewrite the occurrences of one word, copying it only if they change,
+     * and return null if it is left with none
+     */
+    private static Word rewrite(Word word, Set<String> removed, Map<String, List<String>> copies) {
+        Word result = word;
+        for (String file : removed) {
+            if (result.fileLines.containsKey(file)) {
+                if (result == word) {
+                    result = word.copy();
+                }
+                result.fileLines.remove(file);
+            }
+        }
+        for (Map.Entry<String, List<String>> entry : copies.entrySet()) {
+            ArrayList<Integer> lines = word.fileLines.get(entry.getKey());
+            if (lines == null) {
+                continue;
+            }
+            if (result == word) {
+                result = word.copy();
+            }
+            for (String copy : entry.getValue()) {
+                result.fileLines.put(copy, new ArrayList<Integer>(lines));
+            }
+        }
+        return result.fileLines.isEmpty() ? null : result;
+    }
+
+    /**
+     * Process files, directories and glob patterns with a pool of worker
+     * threads and save the repository once at the end, skipping the files
+     * the manifest shows have not changed
+     */
+    public void processFiles(List<String> inputs, int threads) throws IOException {
+        boolean updated = update(findFiles(inputs), threads, files -> indexFiles(files, threads));
+        
+        // Save repository if anything changed
+        if (updated) {
+            saveRepo();
+        }
+    }
+
+    /**
+     * Add the words of many files to the index without saving the
+     * repository. Up to the given number of worker threads each take files
+     * in turn and index them into a tracker of their own, and these are
+     * merged into the index once all files are read. If any file cannot be
+     * read the index is left unchanged.
+     */
+    public void indexFiles(List<String> filenames, int threads) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Illegal number of threads: " + threads);
+        }
+        int workers = Math.min(threads, filenames.size());
+        if (workers == 0) {
+            return;
+        }
+        if (filenames.size() == 1) {
+            // Split a lone file into chunks instead, if it is large enough
+            String filename = filenames.get(0);
+            long chunks = Math.min(threads, new File(filename).length() / MIN_CHUNK_SIZE);
+            indexFile(filename, (int) Math.max(chunks, 1));
+            return;
+        }
+        if (workers == 1) {
+            // Read the files on this thread, as nothing would run alongside
+            WordTracker partial = new WordTracker(this);
+            for (String filename : filenames) {
+                partial.indexFile(filename);
+            }
+            mergeAll(Collections.singletonList(partial));
+            return;
+        }
+
+        // Each worker takes the next unread file until none are left
+        AtomicInteger next = new AtomicInteger();
+        List<Callable<WordTracker>> tasks = new ArrayList<Callable<WordTracker>>();
+        for (int i = 0; i < workers; i++) {
+            tasks.add(() -> {
+                WordTracker partial = new WordTracker(this);
+                for (int file = next.getAndIncrement(); file < filenames.size();
+                        file = next.getAndIncrement()) {
+                    try {
+                        partial.indexFile(filenames.get(file));
+                    } catch (IOException e) {
+                        // Stop the other workers taking more files
+                        next.set(filenames.size());
+                        throw e;
+                    }
+                }
+                return partial;
+            });
+        }
+        mergeAll(runAll(tasks, workers));
+    }
+
+    /**
+     * Run tasks on a pool of up to the given number of threads and return
+     * their results in order, passing on the first exception any threw
+     */
+    private static <T> List<T> runAll(List<Callable<T>> tasks, int threads) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+        try {
+            List<T> results = new ArrayList<T>();
+            for (Future<T> task : pool.invokeAll(tasks)) {
+                results.add(task.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while indexing");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Merge the words of trackers filled by workers into this one, pairing
+     * them up in parallel before merging them into the index in one pass
+     */
+    private synchronized void mergeAll(List<WordTracker> partials) {
+        BSTree<Word> combined = partials.parallelStream()
+                .map(partial -> partial.index.toTree())
+                .reduce((first, second) -> BSTree.merge(first, second, Word::union))
+                .get();
+        BSTree<Word> current = index.toTree();
+        index = newIndex(current.isEmpty() ? combined : BSTree.merge(current, combined, Word::union));
+        
+        // Count the lookups the workers' caches answered as this one's
+        if (cache != null) {
+            for (WordTracker partial : partials) {
+                cache.hits += partial.getCacheHits();
+                cache.lookups += partial.getCacheLookups();
+            }
+        }
+    }
+
+    /**
+     * List the files to read for some inputs, in order and without repeats.
+     * A directory stands for every file below it and a pattern with any of
+     * the glob characters *?[{ for the files it matches, in sorted order;
+     * any other input is taken as a file name as it is.
+     */
+    public static List<String> findFiles(List<String> inputs) throws IOException {
+        LinkedHashSet<String> files = new LinkedHashSet<String>();
+        for (String input : inputs) {
+            int wildcard = firstGlobCharacter(input);
+            if (wildcard >= 0) {
+                // Walk from the directory before the first glob character
+                int slash = Math.max(input.lastIndexOf('/', wildcard),
+                        input.lastIndexOf(File.separatorChar, wildcard));
+                String base = input.substring(0, slash + 1);
+                Path root = Paths.get(base.isEmpty() ? "." : base);
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + input.substring(slash + 1));
+                List<String> matches = Collections.emptyList();
+                if (Files.isDirectory(root)) {
+                    try (Stream<Path> walk = Files.walk(root)) {
+                        matches = walk.filter(Files::isRegularFile)
+                                .map(root::relativize)
+                                .filter(matcher::matches)
+                                .map(path -> base + path)
+                                .sorted()
+                                .collect(Collectors.toList());
+                    }
+                }
+                if (matches.isEmpty()) {
+                    throw new IOException("No files match: " + input);
+                }
+                files.addAll(matches);
+            } else if (new File(input).isDirectory()) {
+                try (Stream<Path> walk = Files.walk(Paths.get(input))) {
+                    walk.filter(Files::isRegularFile)
+                            .map(Path::toString)
+                            .sorted()
+                            .forEachOrdered(files::add);
+                }
+            } else {
+                files.add(input);
+            }
+        }
+        return new ArrayList<String>(files);
+    }
+
+    /**
+     * Find the position of the first glob character in an input, or -1
+     */
+    private static int firstGlobCharacter(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            if ("*?[{".indexOf(input.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Merge the words tracked by another tracker into this one, combining
+     * the occurrences of words both trackers have seen
+     */
+    public synchronized void merge(WordTracker other) {
+        index = newIndex(BSTree.merge(index.toTree(), other.index.toTree(), Word::union));
+        
+        // A source both trackers hold is only known if they agree on it
+        for (Map.Entry<String, Source> entry : other.manifest.entrySet()) {
+            Source mine = manifest.get(entry.getKey());
+            if (mine == null || mine.sameContents(entry.getValue())) {
+                manifest.put(entry.getKey(), entry.getValue());
+            } else {
+                manifest.put(entry.getKey(), Source.UNKNOWN);
+            }
+        }
+    }
+
+    /**
+     * Describe the size and shape of the index and how its lookups went,
+     * after what the manifest saved if it skipped anything
+     */
+    public synchronized String getDiagnostics() {
+        String result = index.diagnostics();
+        if (filesSkipped + filesCopied + filesReread > 0) {
+            result = "Unchanged files skipped: " + filesSkipped + ", identical files copied: " + filesCopied
+                    + ", changed files read again: " + filesReread + "\n" + result;
+        }
+        return result;
+    }
+
+    /**
+     * Take a snapshot of the words, so a report can be formatted from it
+     * while files go on being read
+     */
+    private synchronized Stream<Word> snapshot() {
+        return index.snapshot();
+    }
+
+    /**
+     * Find all tracked words that start with a prefix, in alphabetical order
+     */
+    public synchronized ArrayList<String> findWordsWithPrefix(String prefix) {
+        ArrayList<String> result = new ArrayList<String>();
+        index.findWordsWithPrefix(prefix.toLowerCase(), result);
+        return result;
+    }
+
+    /**
+     * Generate file report
+     */
+    public String makeFileReport() {
+        // Create report header
+        String report = "Word Tracker Report (Files Only)\n";
+        report = report + "==============================\n\n";
+        
+        // Format the words in parallel and join them in alphabetical order
+        return snapshot()
+                .map(w -> w.formatWithFiles() + "\n")
+                .collect(Collectors.joining("", report, ""));
+    }
+
+    /**
+     * Generate line report
+     */
+    public String makeLineReport() {
+        // Create report header
+        String report = "Word Tracker Report (Files and Lines)\n";
+        report = report + "===================================\n\n";
+        
+        // Format the words in parallel and join them in alphabetical order
+        return snapshot()
+                .map(w -> w.formatWithLines() + "\n")
+                .collect(Collectors.joining("", report, ""));
+    }
+
+    /**
+     * Generate occurrence report
+     */
+    public String makeOccurrenceReport() {
+        // Create report header
+        String report = "Word Tracker Report (Files, Lines, and Occurrences)\n";
+        report = report + "=================================================\n\n";
+        
+        // Format the words in parallel and join them in alphabetical order
+        return snapshot()
+                .map(w -> w.formatWithOccurrences() + "\n")
+                .collect(Collectors.joining("", report, ""));
+    }
+
+    /**
+     * Write report to file
+     */
+    public void writeReport(String report, String filename) throws IOException {
+        // Create file writer
+        FileWriter fw = new FileWriter(filename);
+        PrintWriter pw = new PrintWriter(fw);
+        
+        // Write report
+        pw.print(report);
+        
+        // Close file
+        pw.close();
+        fw.close();
+        
+        System.out.println("Report written to " + filename);
+    }
+
+    /**
+     * Print report to console
+     */
+    public void printReport(String report) {
+        System.out.println(report);
+    }
+
+    /**
+     * Main method
+     */
+    public static void main(String[] args) {
+        // Inputs come before the report option, which is the first
+        // argument starting with a dash other than a lone dash for stdin
+        int first = 0;
+        while (first < args.length && (!args[first].startsWith("-") || args[first].equals(STDIN))) {
+            first++;
+        }
+        
+        // Check arguments
+        if (first == 0 || first == args.length) {
+            showUsage();
+            return;
+        }
+
+        // Get input files and report option
+        List<String> inputs = Arrays.asList(args).subList(0, first);
+        String option = args[first];
+        String outFile = null;
+        Index kind = Index.TREE;
+        int cacheSize = DEFAULT_CACHE_SIZE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Charset charset = Charset.defaultCharset();
+        String source = STDIN_SOURCE;
+        long checkpointLines = DEFAULT_CHECKPOINT_LINES;
+        long checkpointSeconds = DEFAULT_CHECKPOINT_SECONDS;
+        boolean diagnostics = false;
+
+        // Check for output file and index options
+        for (int i = first + 1; i < args.length; i++) {
+            if (args[i].startsWith("-f")) {
+                outFile = args[i].substring(2);
+                outFile = outFile + ".txt";
+                System.out.println("Output will be redirected to: " + outFile);
+            } else if (args[i].startsWith("-i")) {
+                try {
+                    kind = Index.valueOf(args[i].substring(2).toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Invalid index option: " + args[i]);
+                    showUsage();
+                    return;
+                }
+            } else if (args[i].equals("-d")) {
+                diagnostics = true;
+            } else if (args[i].startsWith("-w")) {
+                try {
+                    cacheSize = Integer.parseInt(args[i].substring(2));
+                } catch (NumberFormatException e) {
+                    cacheSize = -1;
+                }
+                if (cacheSize < 0) {
+                    System.out.println("Invalid cache option: " + args[i]);
+                    showUsage();
+                    return;
+                }
+            } else if (args[i].startsWith("-c")) {
+                try {
+                    charset = Charset.forName(args[i].substring(2));
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Invalid charset option: " + args[i]);
+                    showUsage();
+                    return;
+                }
+            } else if (args[i].startsWith("-s")) {
+                source = args[i].substring(2);
+            } else if (args[i].startsWith("-k") || args[i].startsWith("-t")) {
+                long every;
+                try {
+                    every = Long.parseLong(args[i].substring(2));
+                } catch (NumberFormatException e) {
+                    every = -1;
+                }
+                if (every < 0) {
+                    System.out.println("Invalid checkpoint option: " + args[i]);
+                    showUsage();
+                    return;
+                }
+                if (args[i].startsWith("-k")) {
+                    checkpointLines = every;
+                } else {
+                    checkpointSeconds = every;
+                }
+            } else if (args[i].startsWith("-j")) {
+                try {
+                    threads = Integer.parseInt(args[i].substring(2));
+                } catch (NumberFormatException e) {
+                    threads = 0;
+                }
+                if (threads < 1) {
+                    System.out.println("Invalid thread option: " + args[i]);
+                    showUsage();
+                    return;
+                }
+            }
+        }
+
+        try {
             // Create word tracker
-            WordTracker tracker = new WordTracker();
+            WordTracker tracker = new WordTracker(kind, cacheSize, charset);
             
-            // Process input file
-            tracker.processFile(inFile);
+            // Process input files, then standard input if it is one
+            List<String> files = new ArrayList<String>(inputs);
+            boolean stdin = files.removeIf(STDIN::equals);
+            if (!files.isEmpty()) {
+                tracker.processFiles(files, threads);
+            }
+            if (stdin) {
+                tracker.processStream(System.in, source, checkpointLines,
+                        TimeUnit.SECONDS.toMillis(checkpointSeconds));
+            }
+            
+            // Print diagnostics if asked
+            if (diagnostics) {
+                System.out.print(tracker.getDiagnostics());
+            }
 
             // Generate report
             String report = null;
@@ -490,11 +1985,19 @@ public class WordTracker {
      * Show usage information
      */
     private static void showUsage() {
-        System.out.println("Usage: java -jar WordTracker.jar <input.txt> -pf/-pl/-po [-f<output.txt>]");
-        System.out.println("  <input.txt>     Path to the input text file");
+        System.out.println("Usage: java -jar WordTracker.jar <input.txt>... -pf/-pl/-po [-f<output.txt>] [-i<index>] [-w<words>] [-j<threads>] [-c<charset>] [-s<name>] [-k<lines>] [-t<seconds>] [-d]");
+        System.out.println("  <input.txt>...  Input text files, directories or glob patterns such as \"docs/*.txt\", or - for standard input");
         System.out.println("  -pf             Print words with files");
         System.out.println("  -pl             Print words with files and line numbers");
         System.out.println("  -po             Print words with files, line numbers, and occurrences");
         System.out.println("  -f<output.txt>  Optional: Redirect output to the specified file");
+        System.out.println("  -i<index>       Optional: Index words in a tree (default), trie or hash map");
+        System.out.println("  -w<words>       Optional: Cache about this many frequent words (default 1024, 0 for none)");
+        System.out.println("  -j<threads>     Optional: Read files on this many threads (default one per processor)");
+        System.out.println("  -c<charset>     Optional: Read files in this charset (default " + Charset.defaultCharset() + ")");
+        System.out.println("  -s<name>        Optional: Record standard input under this source name (default " + STDIN_SOURCE + ")");
+        System.out.println("  -k<lines>       Optional: Save the repository every this many lines of standard input (default " + DEFAULT_CHECKPOINT_LINES + ", 0 for none)");
+        System.out.println("  -t<seconds>     Optional: Save the repository every this many seconds while reading standard input (default " + DEFAULT_CHECKPOINT_SECONDS + ", 0 for none)");
+        System.out.println("  -d              Optional: Print diagnostics about the files skipped and the index after reading");
     }
 }
@@ -0,0 +1,148 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.function.Consumer;
+
+import implementations.BSTree;
+import implementations.BTree;
+import utilities.BSTreeADT;
+import utilities.Iterator;
+
+/**
+ * Class Description: Compares the balanced BSTree with BTree at several
+ * fanouts on random adds, random searches and full in-order scans, both
+ * through the iterator and through forEachInorder. Each figure is the best of
+ * several rounds, after a warm-up round.
+ *
+ * Run with: java -cp bin benchmarks.BTreeBenchmark [entries] [rounds]
+ */
+
+public class BTreeBenchmark
+{
+	private static final int[] FANOUTS = { 4, 16, 64, 256 };
+
+	// Keeps scan results alive so the JIT cannot drop the loops
+	private static long sink;
+
+	/**
+	 * Runs the comparison and prints one row per tree.
+	 *
+	 * @param args optional number of entries and number of rounds
+	 */
+	public static void main( String[] args )
+	{
+		int entries = args.length > 0 ? Integer.parseInt( args[0] ) : 1000000;
+		int rounds = args.length > 1 ? Integer.parseInt( args[1] ) : 5;
+		Integer[] keys = shuffledKeys( entries );
+
+		// Warm up every code path before measuring
+		run( "", new BSTree<Integer>( true ), keys, 1 );
+		for( int fanout : FANOUTS )
+		{
+			run( "", new BTree<Integer>( fanout ), keys, 1 );
+		}
+
+		System.out.printf( "%-14s %8s %12s %12s %12s %12s%n", "tree", "height", "add ms",
+				"search ms", "iterate ms", "forEach ms" );
+		run( "BSTree (AVL)", new BSTree<Integer>( true ), keys, rounds );
+		for( int fanout : FANOUTS )
+		{
+			run( "BTree " + fanout, new BTree<Integer>( fanout ), keys, rounds );
+		}
+	}
+
+	/**
+	 * Measures one kind of tree and prints its row, unless the label is empty.
+	 *
+	 * @param label  the row label, or empty for a warm-up run
+	 * @param tree   an empty tree of the kind to measure
+	 * @param keys   the keys to add and search for
+	 * @param rounds the number of rounds to take the best of
+	 */
+	private static void run( String label, BSTreeADT<Integer> tree, Integer[] keys, int rounds )
+	{
+		double add = Double.MAX_VALUE;
+		double search = Double.MAX_VALUE;
+		double iterate = Double.MAX_VALUE;
+		double forEach = Double.MAX_VALUE;
+		for( int round = 0; round < rounds; round++ )
+		{
+			tree.clear();
+			long start = System.nanoTime();
+			for( Integer key : keys )
+			{
+				tree.add( key );
+			}
+			add = Math.min( add, millisSince( start ) );
+
+			start = System.nanoTime();
+			for( Integer key : keys )
+			{
+				if( tree.contains( key ) )
+				{
+					sink++;
+				}
+			}
+			search = Math.min( search, millisSince( start ) );
+
+			start = System.nanoTime();
+			for( Iterator<Integer> it = tree.inorderIterator(); it.hasNext(); )
+			{
+				sink += it.next();
+			}
+			iterate = Math.min( iterate, millisSince( start ) );
+
+			Consumer<Integer> action = key -> sink += key;
+			start = System.nanoTime();
+			if( tree instanceof BTree )
+			{
+				( (BTree<Integer>) tree ).forEachInorder( action );
+			}
+			else
+			{
+				( (BSTree<Integer>) tree ).forEachInorder( action );
+			}
+			forEach = Math.min( forEach, millisSince( start ) );
+		}
+		if( !label.isEmpty() )
+		{
+			System.out.printf( "%-14s %8d %12.1f %12.1f %12.1f %12.1f%n", label, tree.getHeight(), add, search,
+					iterate, forEach );
+		}
+	}
+
+	/**
+	 * Creates the keys 0 to count - 1 in random order.
+	 *
+	 * @param count the number of keys
+	 * @return the shuffled keys
+	 */
+	private static Integer[] shuffledKeys( int count )
+	{
+		Integer[] keys = new Integer[count];
+		for( int i = 0; i < count; i++ )
+		{
+			keys[i] = i;
+		}
+		Random random = new Random( 304 );
+		for( int i = count - 1; i > 0; i-- )
+		{
+			int j = random.nextInt( i + 1 );
+			Integer swap = keys[i];
+			keys[i] = keys[j];
+			keys[j] = swap;
+		}
+		return keys;
+	}
+
+	/**
+	 * Returns the milliseconds elapsed since a start time.
+	 *
+	 * @param start the start time from System.nanoTime
+	 * @return the elapsed milliseconds
+	 */
+	private static double millisSince( long start )
+	{
+		return ( System.nanoTime() - start ) / 1e6;
+	}
+}
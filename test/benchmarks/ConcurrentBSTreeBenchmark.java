@@ -0,0 +1,164 @@
+package benchmarks;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+import implementations.BSTree;
+import implementations.ConcurrentBSTree;
+
+/**
+ * Class Description: Contention benchmark comparing ConcurrentBSTree with a
+ * balanced BSTree behind a single lock, at 1, 4, 8 and 16 threads. Each thread
+ * runs a mix of 20% adds and 80% searches over random keys.
+ *
+ * Run with: java -cp bin benchmarks.ConcurrentBSTreeBenchmark [opsPerThread]
+ */
+
+public class ConcurrentBSTreeBenchmark
+{
+	private static final int KEY_RANGE = 1 << 20;
+	private static final int[] THREAD_COUNTS = { 1, 4, 8, 16 };
+
+	/**
+	 * Operations the benchmark needs from each tree under test.
+	 */
+	private interface Target
+	{
+		void add( int key );
+
+		void search( int key );
+	}
+
+	/**
+	 * Runs the benchmark and prints throughput for each tree and thread count.
+	 *
+	 * @param args optional number of operations per thread
+	 * @throws InterruptedException if interrupted while waiting for workers
+	 */
+	public static void main( String[] args ) throws InterruptedException
+	{
+		int opsPerThread = args.length > 0 ? Integer.parseInt( args[0] ) : 500000;
+
+		// Warm up both code paths before measuring
+		run( newConcurrent(), 4, opsPerThread / 4 );
+		run( newSynchronized(), 4, opsPerThread / 4 );
+
+		System.out.printf( "%-8s %20s %20s%n", "threads", "concurrent ops/ms", "synchronized ops/ms" );
+		for( int threads : THREAD_COUNTS )
+		{
+			double concurrent = run( newConcurrent(), threads, opsPerThread );
+			double synchronizedTree = run( newSynchronized(), threads, opsPerThread );
+			System.out.printf( "%-8d %20.0f %20.0f%n", threads, concurrent, synchronizedTree );
+		}
+	}
+
+	/**
+	 * Creates a pre-filled ConcurrentBSTree target.
+	 *
+	 * @return the target
+	 */
+	private static Target newConcurrent()
+	{
+		final ConcurrentBSTree<Integer> tree = new ConcurrentBSTree<Integer>();
+		Target target = new Target()
+		{
+			public void add( int key )
+			{
+				tree.add( key );
+			}
+
+			public void search( int key )
+			{
+				tree.search( key );
+			}
+		};
+		prefill( target );
+		return target;
+	}
+
+	/**
+	 * Creates a pre-filled target that guards a balanced BSTree with one lock.
+	 *
+	 * @return the target
+	 */
+	private static Target newSynchronized()
+	{
+		final BSTree<Integer> tree = new BSTree<Integer>( true );
+		Target target = new Target()
+		{
+			public synchronized void add( int key )
+			{
+				tree.add( key );
+			}
+
+			public synchronized void search( int key )
+			{
+				tree.search( key );
+			}
+		};
+		prefill( target );
+		return target;
+	}
+
+	/**
+	 * Adds every other key in the range so searches hit about half the time.
+	 *
+	 * @param target the tree to fill
+	 */
+	private static void prefill( Target target )
+	{
+		for( int key = 0; key < KEY_RANGE; key += 2 )
+		{
+			target.add( key );
+		}
+	}
+
+	/**
+	 * Runs the mixed workload on a number of threads at once.
+	 *
+	 * @param target       the tree under test
+	 * @param threads      the number of worker threads
+	 * @param opsPerThread the number of operations each worker performs
+	 * @return the combined throughput in operations per millisecond
+	 * @throws InterruptedException if interrupted while waiting for workers
+	 */
+	private static double run( final Target target, int threads, final int opsPerThread )
+			throws InterruptedException
+	{
+		final CountDownLatch start = new CountDownLatch( 1 );
+		final CountDownLatch done = new CountDownLatch( threads );
+		for( int t = 0; t < threads; t++ )
+		{
+			new Thread( () -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				try
+				{
+					start.await();
+				}
+				catch( InterruptedException e )
+				{
+					return;
+				}
+				for( int i = 0; i < opsPerThread; i++ )
+				{
+					int key = random.nextInt( KEY_RANGE );
+					if( random.nextInt( 5 ) == 0 )
+					{
+						target.add( key );
+					}
+					else
+					{
+						target.search( key );
+					}
+				}
+				done.countDown();
+			} ).start();
+		}
+
+		long begin = System.nanoTime();
+		start.countDown();
+		done.await();
+		double millis = ( System.nanoTime() - begin ) / 1e6;
+		return threads * (double) opsPerThread / millis;
+	}
+}
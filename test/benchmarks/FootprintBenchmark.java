@@ -0,0 +1,147 @@
+package benchmarks;
+
+import java.util.Random;
+
+import implementations.ArrayBSTree;
+import implementations.BSTree;
+import utilities.BSTreeADT;
+
+/**
+ * Class Description: Memory-footprint comparison between BSTree, which uses one
+ * BSTreeNode object per element, and ArrayBSTree, which keeps the structure in
+ * parallel arrays on-heap or off-heap. The keys are created once and shared,
+ * so only the cost of the tree structure is measured. Keys are added in random
+ * order so the unbalanced trees stay shallow.
+ *
+ * Run with: java -Xmx4g -cp bin benchmarks.FootprintBenchmark [entries...]
+ */
+
+public class FootprintBenchmark
+{
+	/**
+	 * Runs the comparison for each requested number of entries.
+	 *
+	 * @param args the entry counts to measure, 100k, 1M and 10M by default
+	 */
+	public static void main( String[] args )
+	{
+		int[] counts = { 100000, 1000000, 10000000 };
+		if( args.length > 0 )
+		{
+			counts = new int[args.length];
+			for( int i = 0; i < args.length; i++ )
+			{
+				counts[i] = Integer.parseInt( args[i] );
+			}
+		}
+
+		// Load and warm up every class involved so the first row is not skewed
+		Integer[] warmUp = shuffledKeys( 1000 );
+		measure( new BSTree<Integer>(), warmUp, 0 );
+		measure( new ArrayBSTree<Integer>( 1000, false ), warmUp, 0 );
+		measure( new ArrayBSTree<Integer>( 1000, true ), warmUp, 0 );
+
+		System.out.printf( "%-10s %22s %22s %22s%n", "entries", "BSTreeNode bytes/entry",
+				"arrays bytes/entry", "off-heap bytes/entry" );
+		for( int count : counts )
+		{
+			Integer[] keys = shuffledKeys( count );
+			double nodes = measure( new BSTree<Integer>(), keys, 0 );
+			double arrays = measure( new ArrayBSTree<Integer>( count, false ), keys, 0 );
+			// The two child arrays of the off-heap tree take 8 direct bytes per slot
+			double offHeap = measure( new ArrayBSTree<Integer>( count, true ), keys, 8L * count );
+			System.out.printf( "%-10d %22.1f %22.1f %22.1f%n", count, nodes, arrays, offHeap );
+		}
+	}
+
+	/**
+	 * Creates the keys 0 to count - 1 in random order.
+	 *
+	 * @param count the number of keys
+	 * @return the shuffled keys
+	 */
+	private static Integer[] shuffledKeys( int count )
+	{
+		Integer[] keys = new Integer[count];
+		for( int i = 0; i < count; i++ )
+		{
+			keys[i] = i;
+		}
+		Random random = new Random( 304 );
+		for( int i = count - 1; i > 0; i-- )
+		{
+			int j = random.nextInt( i + 1 );
+			Integer swap = keys[i];
+			keys[i] = keys[j];
+			keys[j] = swap;
+		}
+		return keys;
+	}
+
+	/**
+	 * Fills a tree with the keys and returns the memory it holds per entry.
+	 *
+	 * @param tree        an empty tree; it is created before the baseline is taken
+	 *                    and so counts only what it allocates while growing
+	 * @param keys        the keys to add
+	 * @param directBytes memory the tree holds outside the heap
+	 * @return the bytes per entry held by the tree structure
+	 */
+	private static double measure( BSTreeADT<Integer> tree, Integer[] keys, long directBytes )
+	{
+		// Count the empty tree, including any pre-sized arrays, as part of the cost
+		long before = usedHeap() - shallowFootprint( tree );
+		for( Integer key : keys )
+		{
+			tree.add( key );
+		}
+		long after = usedHeap();
+		if( tree.size() != keys.length )
+		{
+			throw new IllegalStateException( "Tree lost entries." );
+		}
+		return ( after - before + directBytes ) / (double) keys.length;
+	}
+
+	/**
+	 * Estimates the heap an empty tree already holds, which for a pre-sized
+	 * ArrayBSTree is its element array and, on-heap, its two child arrays.
+	 *
+	 * @param tree the empty tree
+	 * @return the estimated bytes held before any element is added
+	 */
+	private static long shallowFootprint( BSTreeADT<Integer> tree )
+	{
+		if( !( tree instanceof ArrayBSTree ) )
+		{
+			return 0;
+		}
+		ArrayBSTree<?> arrays = (ArrayBSTree<?>) tree;
+		long referenceArray = 4L * arrays.capacity();
+		long childArrays = arrays.isOffHeap() ? 0 : 8L * arrays.capacity();
+		return referenceArray + childArrays;
+	}
+
+	/**
+	 * Returns the heap in use after encouraging a full collection.
+	 *
+	 * @return the used heap in bytes
+	 */
+	private static long usedHeap()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for( int i = 0; i < 3; i++ )
+		{
+			System.gc();
+			try
+			{
+				Thread.sleep( 50 );
+			}
+			catch( InterruptedException e )
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import implementations.WordTracker;
+
+/**
+ * Class Description: Measures how indexing many files scales with the number
+ * of worker threads, printing files and megabytes per second and the speed-up
+ * over one thread for each thread count from one to the number of processors.
+ * Inputs may be files, directories or glob patterns, as on the command line.
+ * A single input file of a megabyte or more is split into memory-mapped chunks
+ * instead, so its scaling can be measured on its own.
+ * Times are the best of several rounds, after a warm-up round.
+ *
+ * The trackers load repository.ser like the program does, so run this from a
+ * directory without one.
+ *
+ * Run with: java -cp bin benchmarks.IngestBenchmark [rounds] [inputs...]
+ */
+
+public class IngestBenchmark
+{
+	/**
+	 * Runs the comparison and prints one row per thread count.
+	 *
+	 * @param args optional number of rounds, then the inputs to index, which
+	 *             default to the res directory
+	 * @throws IOException if a file cannot be read
+	 */
+	public static void main( String[] args ) throws IOException
+	{
+		int rounds = args.length > 0 ? Integer.parseInt( args[0] ) : 5;
+		List<String> inputs = Arrays.asList( "res" );
+		if( args.length > 1 )
+		{
+			inputs = Arrays.asList( args ).subList( 1, args.length );
+		}
+		List<String> files = WordTracker.findFiles( inputs );
+		long bytes = 0;
+		for( String file : files )
+		{
+			bytes += new File( file ).length();
+		}
+
+		int processors = Runtime.getRuntime().availableProcessors();
+		run( files, processors, 1 );
+		System.out.printf( "%d files, %.1f MB, %d processors%n", files.size(), bytes / 1e6, processors );
+		System.out.printf( "%-8s %12s %12s %12s %10s%n", "threads", "ms", "files/s", "MB/s", "speed-up" );
+		double single = 0;
+		for( int threads = 1; threads <= processors; threads++ )
+		{
+			double millis = run( files, threads, rounds );
+			if( threads == 1 )
+			{
+				single = millis;
+			}
+			System.out.printf( "%-8d %12.1f %12.1f %12.1f %10.2f%n", threads, millis,
+					files.size() / ( millis / 1000 ), bytes / 1e6 / ( millis / 1000 ), single / millis );
+		}
+	}
+
+	/**
+	 * Indexes the files with a new tracker in each round.
+	 *
+	 * @param files   the files to index
+	 * @param threads the number of worker threads
+	 * @param rounds  the number of rounds to take the best of
+	 * @return the best time in milliseconds
+	 * @throws IOException if a file cannot be read
+	 */
+	private static double run( List<String> files, int threads, int rounds ) throws IOException
+	{
+		double best = Double.MAX_VALUE;
+		for( int round = 0; round < rounds; round++ )
+		{
+			WordTracker tracker = new WordTracker();
+			long start = System.nanoTime();
+			tracker.indexFiles( files, threads );
+			best = Math.min( best, ( System.nanoTime() - start ) / 1e6 );
+		}
+		return best;
+	}
+}
@@ -0,0 +1,156 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Random;
+
+import implementations.BSTree;
+import implementations.KeyPrefix;
+
+/**
+ * Class Description: Measures lookups per second in a balanced BSTree keyed by
+ * plain strings against one keyed by strings that carry their packed
+ * KeyPrefix. The words of the input files are tokenized the way WordTracker
+ * does it and looked up in random order. Each figure is the best of several
+ * rounds, after a warm-up round.
+ *
+ * Run with: java -cp bin benchmarks.KeyPrefixBenchmark [rounds] [files...]
+ */
+
+public class KeyPrefixBenchmark
+{
+	// Number of lookups in each round
+	private static final int LOOKUPS = 2000000;
+
+	// Keeps lookup results alive so the JIT cannot drop the loops
+	private static int sink;
+
+	/**
+	 * A string key that keeps its packed prefix next to it.
+	 */
+	private static class PrefixedKey implements Comparable<PrefixedKey>
+	{
+		private final String key;
+		private final long prefix;
+
+		PrefixedKey( String key )
+		{
+			this.key = key;
+			this.prefix = KeyPrefix.of( key );
+		}
+
+		@Override
+		public int compareTo( PrefixedKey other )
+		{
+			return KeyPrefix.compare( key, prefix, other.key, other.prefix );
+		}
+	}
+
+	/**
+	 * Runs the comparison and prints lookups per second for both kinds of key.
+	 *
+	 * @param args optional number of rounds, then the files to read words from,
+	 *             which default to res/test3.txt
+	 * @throws IOException if a file cannot be read
+	 */
+	public static void main( String[] args ) throws IOException
+	{
+		int rounds = args.length > 0 ? Integer.parseInt( args[0] ) : 5;
+		String[] files = { "res/test3.txt" };
+		if( args.length > 1 )
+		{
+			files = new String[args.length - 1];
+			System.arraycopy( args, 1, files, 0, files.length );
+		}
+
+		ArrayList<String> words = vocabulary( files );
+		BSTree<String> plain = new BSTree<String>( true );
+		BSTree<PrefixedKey> prefixed = new BSTree<PrefixedKey>( true );
+		for( String word : words )
+		{
+			plain.add( word );
+			prefixed.add( new PrefixedKey( word ) );
+		}
+
+		// Look up fresh copies, so equal keys are never the same object
+		Random random = new Random( 16 );
+		String[] plainQueries = new String[LOOKUPS];
+		PrefixedKey[] prefixedQueries = new PrefixedKey[LOOKUPS];
+		for( int i = 0; i < LOOKUPS; i++ )
+		{
+			plainQueries[i] = new String( words.get( random.nextInt( words.size() ) ) );
+			prefixedQueries[i] = new PrefixedKey( new String( plainQueries[i] ) );
+		}
+
+		lookups( plain, plainQueries, 1 );
+		lookups( prefixed, prefixedQueries, 1 );
+		System.out.printf( "%d words, height %d%n", words.size(), plain.getHeight() );
+		System.out.printf( "%-10s %16s%n", "keys", "lookups/s" );
+		System.out.printf( "%-10s %16.0f%n", "String", lookups( plain, plainQueries, rounds ) );
+		System.out.printf( "%-10s %16.0f%n", "prefixed", lookups( prefixed, prefixedQueries, rounds ) );
+	}
+
+	/**
+	 * Looks up every query in each round.
+	 *
+	 * @param <E>     the type of keys
+	 * @param tree    the tree to search
+	 * @param queries the keys to look up
+	 * @param rounds  the number of rounds to take the best of
+	 * @return the best lookups per second
+	 */
+	private static <E extends Comparable<? super E>> double lookups( BSTree<E> tree, E[] queries, int rounds )
+	{
+		double best = 0;
+		for( int round = 0; round < rounds; round++ )
+		{
+			long start = System.nanoTime();
+			for( E query : queries )
+			{
+				if( tree.contains( query ) )
+				{
+					sink++;
+				}
+			}
+			best = Math.max( best, queries.length / ( ( System.nanoTime() - start ) / 1e9 ) );
+		}
+		return best;
+	}
+
+	/**
+	 * Reads the distinct words of some files, shuffled.
+	 *
+	 * @param files the files to read
+	 * @return the distinct words
+	 * @throws IOException if a file cannot be read
+	 */
+	private static ArrayList<String> vocabulary( String[] files ) throws IOException
+	{
+		LinkedHashSet<String> words = new LinkedHashSet<String>();
+		for( String file : files )
+		{
+			try( BufferedReader reader = new BufferedReader( new FileReader( file ) ) )
+			{
+				String line;
+				while( ( line = reader.readLine() ) != null )
+				{
+					for( String token : line.split( "\\s+" ) )
+					{
+						String word = token.replaceAll( "[^a-zA-Z0-9]", "" ).toLowerCase();
+						if( word.length() > 0 )
+						{
+							words.add( word );
+						}
+					}
+				}
+			}
+		}
+		ArrayList<String> shuffled = new ArrayList<String>( words );
+		Collections.shuffle( shuffled, new Random( 16 ) );
+		return shuffled;
+	}
+}
@@ -0,0 +1,126 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+
+import implementations.WordTracker;
+
+/**
+ * Class Description: Compares WordTracker indexing files through a decoding
+ * reader against splitting them into words straight from their bytes,
+ * printing megabytes per second for each. The files are read once in UTF-8,
+ * which is read as bytes, and once in the same UTF-8 under another name, which
+ * WordTracker does not know it can read as bytes and so decodes line by line.
+ * Times are the best of several rounds, after a warm-up round.
+ *
+ * The trackers load repository.ser like the program does, so run this from a
+ * directory without one.
+ *
+ * Run with: java -cp bin benchmarks.ReaderBenchmark [rounds] [files...]
+ */
+
+public class ReaderBenchmark
+{
+	/**
+	 * UTF-8 under a name WordTracker does not recognize.
+	 */
+	private static class RenamedUtf8 extends Charset
+	{
+		RenamedUtf8()
+		{
+			super( "x-benchmark-utf-8", null );
+		}
+
+		@Override
+		public boolean contains( Charset other )
+		{
+			return StandardCharsets.UTF_8.contains( other );
+		}
+
+		@Override
+		public CharsetDecoder newDecoder()
+		{
+			return StandardCharsets.UTF_8.newDecoder();
+		}
+
+		@Override
+		public CharsetEncoder newEncoder()
+		{
+			return StandardCharsets.UTF_8.newEncoder();
+		}
+	}
+
+	/**
+	 * Runs the comparison and prints one row per way of reading.
+	 *
+	 * @param args optional number of rounds, then the files to read, which
+	 *             default to res/test1.txt to res/test3.txt
+	 * @throws IOException if a file cannot be read
+	 */
+	public static void main( String[] args ) throws IOException
+	{
+		int rounds = args.length > 0 ? Integer.parseInt( args[0] ) : 10;
+		String[] files = { "res/test1.txt", "res/test2.txt", "res/test3.txt" };
+		if( args.length > 1 )
+		{
+			files = new String[args.length - 1];
+			System.arraycopy( args, 1, files, 0, files.length );
+		}
+		long bytes = 0;
+		for( String file : files )
+		{
+			bytes += new File( file ).length();
+		}
+
+		Charset decoded = new RenamedUtf8();
+		index( files, StandardCharsets.UTF_8, 1 );
+		index( files, decoded, 1 );
+
+		System.out.printf( "%d files, %.1f MB%n", files.length, bytes / 1e6 );
+		System.out.printf( "%-10s %12s %12s%n", "reader", "ms", "MB/s" );
+		print( "decoded", index( files, decoded, rounds ), bytes );
+		print( "bytes", index( files, StandardCharsets.UTF_8, rounds ), bytes );
+	}
+
+	/**
+	 * Prints one row of results.
+	 *
+	 * @param name   the way of reading
+	 * @param millis the time taken in milliseconds
+	 * @param bytes  the size of the files
+	 */
+	private static void print( String name, double millis, long bytes )
+	{
+		System.out.printf( "%-10s %12.1f %12.1f%n", name, millis, bytes / 1e6 / ( millis / 1000 ) );
+	}
+
+	/**
+	 * Indexes the files with a new tracker reading them in a charset in each
+	 * round.
+	 *
+	 * @param files   the files to index
+	 * @param charset the charset to read them in
+	 * @param rounds  the number of rounds to take the best of
+	 * @return the best time in milliseconds
+	 * @throws IOException if a file cannot be read
+	 */
+	private static double index( String[] files, Charset charset, int rounds ) throws IOException
+	{
+		double best = Double.MAX_VALUE;
+		for( int round = 0; round < rounds; round++ )
+		{
+			WordTracker tracker = new WordTracker( WordTracker.Index.TREE, 1024, charset );
+			long start = System.nanoTime();
+			for( String file : files )
+			{
+				tracker.indexFile( file );
+			}
+			best = Math.min( best, ( System.nanoTime() - start ) / 1e6 );
+		}
+		return best;
+	}
+}
@@ -0,0 +1,107 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import implementations.WordTracker;
+
+/**
+ * Class Description: Measures how much the manifest of sources saves when the
+ * same inputs are processed again, printing the time for a first run into an
+ * empty repository, a run with nothing changed, a run after every file was
+ * touched so it has to be hashed, and a run after one file really changed.
+ * Each run loads and saves repository.ser like the program does, and the
+ * times include that.
+ *
+ * The benchmark creates and deletes repository.ser, so it refuses to run in a
+ * directory that already has one.
+ *
+ * Run with: java -cp bin benchmarks.RerunBenchmark [inputs...]
+ */
+
+public class RerunBenchmark
+{
+	// The repository the program saves to
+	private static final File REPOSITORY = new File( "repository.ser" );
+
+	/**
+	 * Runs each kind of run once and prints one row for each.
+	 *
+	 * @param args the inputs to process, which default to the res directory;
+	 *             the last file is changed and restored by the benchmark
+	 * @throws IOException if a file cannot be read or changed
+	 */
+	public static void main( String[] args ) throws IOException
+	{
+		if( REPOSITORY.exists() )
+		{
+			System.out.println( "Run this from a directory without " + REPOSITORY );
+			return;
+		}
+		List<String> inputs = Arrays.asList( "res" );
+		if( args.length > 0 )
+		{
+			inputs = Arrays.asList( args );
+		}
+		List<String> files = WordTracker.findFiles( inputs );
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		try
+		{
+			System.out.printf( "%d files%n", files.size() );
+			double first = run( inputs, threads );
+			double unchanged = run( inputs, threads );
+			long now = System.currentTimeMillis();
+			for( String file : files )
+			{
+				new File( file ).setLastModified( now );
+			}
+			double touched = run( inputs, threads );
+
+			// Change the last file by adding a line, then put it back
+			File changedFile = new File( files.get( files.size() - 1 ) );
+			byte[] original = Files.readAllBytes( changedFile.toPath() );
+			double changed;
+			try
+			{
+				Files.write( changedFile.toPath(), "one more line\n".getBytes(),
+						StandardOpenOption.APPEND );
+				changed = run( inputs, threads );
+			}
+			finally
+			{
+				Files.write( changedFile.toPath(), original );
+			}
+
+			System.out.printf( "%-12s %12s%n", "run", "ms" );
+			System.out.printf( "%-12s %12.1f%n", "first", first );
+			System.out.printf( "%-12s %12.1f%n", "unchanged", unchanged );
+			System.out.printf( "%-12s %12.1f%n", "touched", touched );
+			System.out.printf( "%-12s %12.1f%n", "one changed", changed );
+		}
+		finally
+		{
+			REPOSITORY.delete();
+		}
+	}
+
+	/**
+	 * Processes the inputs with a new tracker, the way one run of the program
+	 * does.
+	 *
+	 * @param inputs  the inputs to process
+	 * @param threads the number of worker threads
+	 * @return the time in milliseconds
+	 * @throws IOException if a file cannot be read
+	 */
+	private static double run( List<String> inputs, int threads ) throws IOException
+	{
+		long start = System.nanoTime();
+		new WordTracker().processFiles( inputs, threads );
+		return ( System.nanoTime() - start ) / 1e6;
+	}
+}
@@ -0,0 +1,197 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import implementations.WordTokenizer;
+
+/**
+ * Class Description: Compares splitting lines into words with the regular
+ * expressions WordTracker used before against the table-driven WordTokenizer,
+ * printing words per second and the bytes allocated per word. The tokenizer
+ * runs twice: once creating a String for every word, as a lookup without the
+ * hot word cache does, and once only hashing the word, as a cache hit does.
+ * Each figure is the best of several rounds, after a warm-up round.
+ *
+ * Run with: java -cp bin benchmarks.TokenizerBenchmark [rounds] [files...]
+ */
+
+public class TokenizerBenchmark
+{
+	// Number of times the lines are split in each round
+	private static final int PASSES = 20;
+
+	// Keeps the words alive so the JIT cannot drop the loops
+	private static long sink;
+
+	/**
+	 * A way of splitting every line into words.
+	 */
+	private interface Splitter
+	{
+		// Split each line and return the number of words
+		long split( String[] lines );
+	}
+
+	/**
+	 * Runs the comparison and prints one row per way of splitting.
+	 *
+	 * @param args optional number of rounds, then the files to read lines from,
+	 *             which default to res/test1.txt to res/test3.txt
+	 * @throws IOException if a file cannot be read
+	 */
+	public static void main( String[] args ) throws IOException
+	{
+		int rounds = args.length > 0 ? Integer.parseInt( args[0] ) : 5;
+		String[] files = { "res/test1.txt", "res/test2.txt", "res/test3.txt" };
+		if( args.length > 1 )
+		{
+			files = new String[args.length - 1];
+			System.arraycopy( args, 1, files, 0, files.length );
+		}
+		String[] lines = lines( files );
+
+		Splitter regex = TokenizerBenchmark::regex;
+		Splitter words = input -> tokenize( input, true );
+		Splitter hashes = input -> tokenize( input, false );
+		for( Splitter splitter : new Splitter[] { regex, words, hashes } )
+		{
+			run( splitter, lines, 1 );
+		}
+
+		System.out.printf( "%d lines%n", lines.length );
+		System.out.printf( "%-12s %16s %16s%n", "splitter", "words/s", "bytes/word" );
+		print( "regex", run( regex, lines, rounds ) );
+		print( "tokenizer", run( words, lines, rounds ) );
+		print( "hash only", run( hashes, lines, rounds ) );
+	}
+
+	/**
+	 * Splits the lines in each round.
+	 *
+	 * @param splitter the way of splitting
+	 * @param lines    the lines to split
+	 * @param rounds   the number of rounds to take the best of
+	 * @return the best words per second and the fewest bytes allocated per word
+	 */
+	private static double[] run( Splitter splitter, String[] lines, int rounds )
+	{
+		double speed = 0;
+		double bytes = Double.MAX_VALUE;
+		for( int round = 0; round < rounds; round++ )
+		{
+			long allocated = allocatedBytes();
+			long start = System.nanoTime();
+			long count = 0;
+			for( int pass = 0; pass < PASSES; pass++ )
+			{
+				count += splitter.split( lines );
+			}
+			long elapsed = System.nanoTime() - start;
+			bytes = Math.min( bytes, ( allocatedBytes() - allocated ) / (double) count );
+			speed = Math.max( speed, count / ( elapsed / 1e9 ) );
+		}
+		return new double[] { speed, bytes };
+	}
+
+	/**
+	 * Prints one row of results.
+	 *
+	 * @param name   the way of splitting
+	 * @param result the words per second and bytes per word
+	 */
+	private static void print( String name, double[] result )
+	{
+		System.out.printf( "%-12s %16.0f %16.1f%n", name, result[0], result[1] );
+	}
+
+	/**
+	 * Splits lines with the regular expressions WordTracker used before.
+	 *
+	 * @param lines the lines to split
+	 * @return the number of words
+	 */
+	private static long regex( String[] lines )
+	{
+		long count = 0;
+		for( String line : lines )
+		{
+			for( String token : line.split( "\\s+" ) )
+			{
+				String word = token.replaceAll( "[^a-zA-Z0-9]", "" ).toLowerCase();
+				if( word.length() > 0 )
+				{
+					sink += word.hashCode();
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Splits lines with a WordTokenizer.
+	 *
+	 * @param lines   the lines to split
+	 * @param strings whether to create a String for each word
+	 * @return the number of words
+	 */
+	private static long tokenize( String[] lines, boolean strings )
+	{
+		WordTokenizer tokenizer = new WordTokenizer();
+		long count = 0;
+		for( String line : lines )
+		{
+			tokenizer.reset( line );
+			while( tokenizer.next() )
+			{
+				sink += strings ? tokenizer.word().hashCode() : tokenizer.hash();
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the bytes the current thread has allocated, where the JVM can
+	 * tell.
+	 *
+	 * @return the allocated bytes, or zero if they cannot be measured
+	 */
+	private static long allocatedBytes()
+	{
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if( bean instanceof com.sun.management.ThreadMXBean )
+		{
+			return ( (com.sun.management.ThreadMXBean) bean ).getThreadAllocatedBytes( Thread.currentThread().getId() );
+		}
+		return 0;
+	}
+
+	/**
+	 * Reads every line of some files.
+	 *
+	 * @param files the files to read
+	 * @return the lines
+	 * @throws IOException if a file cannot be read
+	 */
+	private static String[] lines( String[] files ) throws IOException
+	{
+		ArrayList<String> lines = new ArrayList<String>();
+		for( String file : files )
+		{
+			try( BufferedReader reader = new BufferedReader( new FileReader( file ) ) )
+			{
+				String line;
+				while( ( line = reader.readLine() ) != null )
+				{
+					lines.add( line );
+				}
+			}
+		}
+		return lines.toArray( new String[0] );
+	}
+}
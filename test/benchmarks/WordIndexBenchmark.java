@@ -0,0 +1,153 @@
+package benchmarks;
+
+import java.io.IOException;
+
+import implementations.WordTracker;
+
+/**
+ * Class Description: Compares the kinds of WordTracker index on the same
+ * input files, printing the time to index them, the time to then build a
+ * report and answer a batch of prefix queries, and the heap the index holds.
+ * Each kind of index runs without and with the default hot word cache, and the
+ * share of lookups the cache answered is shown.
+ * Times are the best of several rounds, after a warm-up round, and heap is the
+ * average over the trackers of all rounds.
+ *
+ * The trackers load repository.ser like the program does, so run this from a
+ * directory without one.
+ *
+ * Run with: java -cp bin benchmarks.WordIndexBenchmark [rounds] [files...]
+ */
+
+public class WordIndexBenchmark
+{
+	// Prefix queries run after each report
+	private static final String[] PREFIXES = { "a", "in", "inter", "pre", "th", "un", "x", "zz" };
+
+	// Cache sizes each kind of index runs with
+	private static final int[] CACHE_SIZES = { 0, 1024 };
+
+	/**
+	 * Runs the comparison and prints one row per kind of index and cache size.
+	 *
+	 * @param args optional number of rounds, then the files to index, which
+	 *             default to res/test1.txt to res/test3.txt
+	 * @throws IOException if a file cannot be read
+	 */
+	public static void main( String[] args ) throws IOException
+	{
+		int rounds = args.length > 0 ? Integer.parseInt( args[0] ) : 20;
+		String[] files = { "res/test1.txt", "res/test2.txt", "res/test3.txt" };
+		if( args.length > 1 )
+		{
+			files = new String[args.length - 1];
+			System.arraycopy( args, 1, files, 0, files.length );
+		}
+
+		// Warm up every index before measuring
+		for( WordTracker.Index kind : WordTracker.Index.values() )
+		{
+			for( int cacheSize : CACHE_SIZES )
+			{
+				run( kind, cacheSize, files, 1 );
+			}
+		}
+
+		System.out.printf( "%-8s %8s %12s %12s %12s %14s %8s%n", "index", "cache", "index ms", "report ms",
+				"prefix ms", "heap KiB", "hit %" );
+		for( WordTracker.Index kind : WordTracker.Index.values() )
+		{
+			for( int cacheSize : CACHE_SIZES )
+			{
+				double[] result = run( kind, cacheSize, files, rounds );
+				System.out.printf( "%-8s %8d %12.1f %12.1f %12.1f %14.1f %8.1f%n", kind, cacheSize, result[0],
+						result[1], result[2], result[3] / 1024, result[4] * 100 );
+			}
+		}
+	}
+
+	/**
+	 * Indexes the files with a new tracker in each round, keeping every
+	 * tracker alive so the heap they hold together is large enough to measure
+	 * reliably.
+	 *
+	 * @param kind      the kind of index
+	 * @param cacheSize the size of the hot word cache, or zero for none
+	 * @param files     the files to index
+	 * @param rounds    the number of rounds to take the best of
+	 * @return the best times in milliseconds to index, report and query, the
+	 *         average heap in bytes held by a tracker and the cache hit rate
+	 * @throws IOException if a file cannot be read
+	 */
+	private static double[] run( WordTracker.Index kind, int cacheSize, String[] files, int rounds )
+			throws IOException
+	{
+		double index = Double.MAX_VALUE;
+		double report = Double.MAX_VALUE;
+		double prefix = Double.MAX_VALUE;
+		WordTracker[] trackers = new WordTracker[rounds];
+		long before = usedHeap();
+		for( int round = 0; round < rounds; round++ )
+		{
+			trackers[round] = new WordTracker( kind, cacheSize );
+			long start = System.nanoTime();
+			for( String file : files )
+			{
+				trackers[round].indexFile( file );
+			}
+			index = Math.min( index, millisSince( start ) );
+
+			start = System.nanoTime();
+			trackers[round].makeFileReport();
+			report = Math.min( report, millisSince( start ) );
+
+			start = System.nanoTime();
+			for( String stem : PREFIXES )
+			{
+				trackers[round].findWordsWithPrefix( stem );
+			}
+			prefix = Math.min( prefix, millisSince( start ) );
+		}
+		long heap = usedHeap() - before;
+		// Keep the trackers reachable until their heap has been measured
+		for( WordTracker tracker : trackers )
+		{
+			tracker.findWordsWithPrefix( "a" );
+		}
+		return new double[] { index, report, prefix, heap / (double) rounds, trackers[0].getCacheHitRate() };
+	}
+
+	/**
+	 * Returns the milliseconds elapsed since a start time.
+	 *
+	 * @param start the start time from System.nanoTime
+	 * @return the elapsed milliseconds
+	 */
+	private static double millisSince( long start )
+	{
+		return ( System.nanoTime() - start ) / 1e6;
+	}
+
+	/**
+	 * Returns the heap in use after encouraging a full collection.
+	 *
+	 * @return the used heap in bytes
+	 */
+	private static long usedHeap()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for( int i = 0; i < 3; i++ )
+		{
+			System.gc();
+			try
+			{
+				Thread.sleep( 50 );
+			}
+			catch( InterruptedException e )
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,202 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import utilities.Iterator;
+
+import implementations.ArrayBSTree;
+
+/**
+ * Class Description: Unit tests for the struct-of-arrays implementation of
+ * the BSTreeADT, run against both on-heap and off-heap child storage.
+ */
+
+public class ArrayBSTreeTest
+{
+	// Attributes
+	private ArrayBSTree<Integer> tree;
+	private ArrayBSTree<Integer> offHeapTree;
+
+	/**
+	 * Initializes an on-heap and an off-heap tree, both with a tiny capacity so
+	 * the tests also exercise growth, before each test.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		tree = new ArrayBSTree<Integer>( 1, false );
+		offHeapTree = new ArrayBSTree<Integer>( 1, true );
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		tree = null;
+		offHeapTree = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#add(java.lang.Comparable)},
+	 * {@link implementations.ArrayBSTree#search(java.lang.Comparable)} and
+	 * {@link implementations.ArrayBSTree#getHeight()} in both storage modes.
+	 */
+	@Test
+	public void testAddSearchAndHeight()
+	{
+		for( ArrayBSTree<Integer> t : Arrays.asList( tree, offHeapTree ) )
+		{
+			int[] order = { 44, 22, 66, 11, 55, 33, 77 };
+			for( int value : order )
+			{
+				assertTrue( t.add( value ) );
+			}
+			assertFalse( "Failed to reject duplicate.", t.add( 44 ) );
+
+			assertEquals( "Failed to update size.", 7, t.size() );
+			assertEquals( "Failed to return correct height.", 3, t.getHeight() );
+			assertEquals( "Failed to return root element.", 44, (int) t.getRoot().getElement() );
+			assertEquals( "Failed to find element.", 33, (int) t.search( 33 ).getElement() );
+			assertNull( "Failed to return null.", t.search( 34 ) );
+			assertTrue( "Failed to grow.", t.capacity() >= 7 );
+		}
+		assertTrue( "Tree should be off-heap.", offHeapTree.isOffHeap() );
+	}
+
+	/**
+	 * Test method for the in-order, pre-order and post-order iterators in both
+	 * storage modes.
+	 */
+	@Test
+	public void testIterators()
+	{
+		for( ArrayBSTree<Integer> t : Arrays.asList( tree, offHeapTree ) )
+		{
+			int[] order = { 44, 22, 66, 11, 55, 33, 77 };
+			for( int value : order )
+			{
+				t.add( value );
+			}
+
+			assertIteratesOver( new int[] { 11, 22, 33, 44, 55, 66, 77 }, t.inorderIterator() );
+			assertIteratesOver( new int[] { 44, 22, 11, 33, 66, 55, 77 }, t.preorderIterator() );
+			assertIteratesOver( new int[] { 11, 33, 22, 55, 77, 66, 44 }, t.postorderIterator() );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#removeMin()} and
+	 * {@link implementations.ArrayBSTree#removeMax()} to remove elements and reuse
+	 * the freed slots.
+	 */
+	@Test
+	public void testRemoveAndReuse()
+	{
+		for( ArrayBSTree<Integer> t : Arrays.asList( tree, offHeapTree ) )
+		{
+			for( int i = 0; i < 100; i++ )
+			{
+				t.add( ( i * 37 ) % 100 );
+			}
+			int capacity = t.capacity();
+
+			for( int i = 0; i < 50; i++ )
+			{
+				assertEquals( "Failed to remove minimum value.", i, (int) t.removeMin().getElement() );
+				assertEquals( "Failed to remove maximum value.", 99 - i, (int) t.removeMax().getElement() );
+			}
+			for( int i = 0; i < 100; i++ )
+			{
+				t.add( 1000 + ( i * 37 ) % 100 );
+			}
+			assertEquals( "Failed to update size.", 100, t.size() );
+			assertEquals( "Failed to reuse freed slots.", capacity, t.capacity() );
+
+			t.clear();
+			assertTrue( "Failed to clear tree.", t.isEmpty() );
+			assertNull( "Failed to return null.", t.removeMin() );
+			assertNull( "Failed to return null.", t.removeMax() );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#getRoot()} to throw
+	 * NullPointerException when getting the root of an empty tree.
+	 */
+	@Test
+	public void testGetRoot_NullPointerException()
+	{
+		try
+		{
+			tree.getRoot();
+			fail( "Failed to throw NullPointerException." );
+		}
+		catch( NullPointerException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for serialization of an off-heap tree, which must keep its
+	 * shape, its elements and its free slots.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	@SuppressWarnings( "unchecked" )
+	public void testSerialization() throws Exception
+	{
+		int[] order = { 44, 22, 66, 11, 55, 33, 77 };
+		for( int value : order )
+		{
+			offHeapTree.add( value );
+		}
+		offHeapTree.removeMin();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream( bytes );
+		out.writeObject( offHeapTree );
+		out.close();
+		ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+		ArrayBSTree<Integer> copy = (ArrayBSTree<Integer>) in.readObject();
+
+		assertTrue( "Copy should be off-heap.", copy.isOffHeap() );
+		assertEquals( "Failed to keep size.", 6, copy.size() );
+		assertIteratesOver( new int[] { 44, 22, 33, 66, 55, 77 }, copy.preorderIterator() );
+		copy.add( 11 );
+		assertIteratesOver( new int[] { 11, 22, 33, 44, 55, 66, 77 }, copy.inorderIterator() );
+	}
+
+	/**
+	 * Asserts that an iterator returns exactly the given elements, in order.
+	 * 
+	 * @param shouldBe the expected elements
+	 * @param it       the iterator to check
+	 */
+	private void assertIteratesOver( int[] shouldBe, Iterator<Integer> it )
+	{
+		for( int expected : shouldBe )
+		{
+			assertTrue( "Iterator ended early.", it.hasNext() );
+			assertEquals( "Iterator is out of order.", expected, (int) it.next() );
+		}
+		assertFalse( "Iterator has extra elements.", it.hasNext() );
+	}
+}
@@ -2,6 +2,11 @@ package unitTests;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -607,4 +612,1084 @@ public class BSTreeTest
 	{
 		assertNull( "Failed to return maximum value.", tree.removeMax() );
 	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#BSTree(boolean)} for creating
+	 * a new, empty balanced BSTree.
+	 */
+	@Test
+	public void testBalanced_Constructor()
+	{
+		BSTree<Integer> balanced = new BSTree<Integer>( true );
+		assertTrue( "Failed to create balanced tree.", balanced.isBalanced() );
+		assertFalse( "Default tree should not be balanced.", tree.isBalanced() );
+		assertEquals( "Failed to return correct size.", 0, balanced.size() );
+		assertEquals( "Height of tree should be ", 0, balanced.getHeight() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#add(java.lang.Comparable)} to
+	 * keep a balanced tree logarithmic when adding sorted input.
+	 */
+	@Test
+	public void testBalanced_SortedInput()
+	{
+		BSTree<Integer> balanced = new BSTree<Integer>( true );
+		int count = 10000;
+		for( int i = 0; i < count; i++ )
+		{
+			assertTrue( balanced.add( i ) );
+		}
+
+		assertBalancedContents( balanced, count );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#add(java.lang.Comparable)} to
+	 * keep a balanced tree logarithmic when adding reverse-sorted input.
+	 */
+	@Test
+	public void testBalanced_ReverseSortedInput()
+	{
+		BSTree<Integer> balanced = new BSTree<Integer>( true );
+		int count = 10000;
+		for( int i = count - 1; i >= 0; i-- )
+		{
+			assertTrue( balanced.add( i ) );
+		}
+
+		assertBalancedContents( balanced, count );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#add(java.lang.Comparable)} to
+	 * keep a balanced tree logarithmic when adding zig-zag input that alternates
+	 * between the smallest and largest remaining values.
+	 */
+	@Test
+	public void testBalanced_ZigZagInput()
+	{
+		BSTree<Integer> balanced = new BSTree<Integer>( true );
+		int count = 10000;
+		for( int low = 0, high = count - 1; low <= high; low++, high-- )
+		{
+			assertTrue( balanced.add( low ) );
+			if( low != high )
+			{
+				assertTrue( balanced.add( high ) );
+			}
+		}
+
+		assertBalancedContents( balanced, count );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#add(java.lang.Comparable)} to
+	 * reject a duplicate element in a balanced tree.
+	 */
+	@Test
+	public void testBalanced_AddDuplicate()
+	{
+		BSTree<Integer> balanced = new BSTree<Integer>( true );
+		balanced.add( four );
+		balanced.add( two );
+
+		assertFalse( "Failed to reject duplicate.", balanced.add( four ) );
+		assertEquals( "Failed to keep size.", 2, balanced.size() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#removeMin()} and
+	 * {@link implementations.BSTree#removeMax()} to drain a balanced tree from
+	 * both ends while keeping it balanced.
+	 */
+	@Test
+	public void testBalanced_RemoveMinAndMax()
+	{
+		BSTree<Integer> balanced = new BSTree<Integer>( true );
+		int count = 1000;
+		for( int i = 0; i < count; i++ )
+		{
+			balanced.add( i );
+		}
+
+		for( int low = 0, high = count - 1; low < high; low++, high-- )
+		{
+			assertEquals( "Failed to remove minimum value.", low,
+					(int) balanced.removeMin().getElement() );
+			assertEquals( "Failed to remove maximum value.", high,
+					(int) balanced.removeMax().getElement() );
+			assertTrue( "Tree is no longer balanced.",
+					balanced.getHeight() <= maxBalancedHeight( balanced.size() ) );
+		}
+
+		assertEquals( "Failed to update size.", 0, balanced.size() );
+		assertNull( "Failed to return null.", balanced.removeMin() );
+		assertNull( "Failed to return null.", balanced.removeMax() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#add(java.lang.Comparable)},
+	 * {@link implementations.BSTree#search(java.lang.Comparable)},
+	 * {@link implementations.BSTree#getHeight()},
+	 * {@link implementations.BSTree#removeMin()} and
+	 * {@link implementations.BSTree#removeMax()} on a fully skewed tree far deeper
+	 * than a recursive implementation can handle on the default thread stack.
+	 */
+	@Test
+	public void testSkewedTree_NoStackOverflow()
+	{
+		int count = 25000;
+		for( int i = 0; i < count; i++ )
+		{
+			tree.add( i );
+		}
+
+		assertEquals( "Failed to update size correctly.", count, tree.size() );
+		assertEquals( "Failed to return correct height.", count, tree.getHeight() );
+		assertEquals( "Failed to find deepest element.", count - 1,
+				(int) tree.search( count - 1 ).getElement() );
+		assertNull( "Failed to return null.", tree.search( count ) );
+		assertFalse( "Failed to reject duplicate.", tree.add( count - 1 ) );
+		assertEquals( "Failed to remove maximum value.", count - 1,
+				(int) tree.removeMax().getElement() );
+		assertEquals( "Failed to remove minimum value.", 0,
+				(int) tree.removeMin().getElement() );
+		assertEquals( "Failed to update height.", count - 2, tree.getHeight() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#rank(java.lang.Comparable)} to
+	 * count the elements smaller than present and absent elements.
+	 */
+	@Test
+	public void testRank()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( five );
+
+		assertEquals( "Failed to rank minimum.", 0, tree.rank( one ) );
+		assertEquals( "Failed to rank element.", 2, tree.rank( four ) );
+		assertEquals( "Failed to rank absent element.", 2, tree.rank( three ) );
+		assertEquals( "Failed to rank element above maximum.", 5, tree.rank( seven ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#rank(java.lang.Comparable)} to
+	 * throw a NullPointerException when passing a null.
+	 */
+	@Test
+	public void testRank_NullPointerException()
+	{
+		try
+		{
+			tree.rank( null );
+			fail( "Failed to throw NullPointerException." );
+		}
+		catch( NullPointerException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#select(int)} to return the
+	 * element at each position of the natural ordering, in both modes.
+	 */
+	@Test
+	public void testSelect()
+	{
+		BSTree<Integer> balanced = new BSTree<Integer>( true );
+		Integer[] shouldBe = { one, two, three, four, five, six, seven };
+		Integer[] order = { four, two, six, one, five, three, seven };
+		for( Integer value : order )
+		{
+			tree.add( value );
+			balanced.add( value );
+		}
+
+		for( int i = 0; i < shouldBe.length; i++ )
+		{
+			assertEquals( "Failed to select element.", shouldBe[i], tree.select( i ).getElement() );
+			assertEquals( "Failed to select element.", shouldBe[i],
+					balanced.select( i ).getElement() );
+			assertEquals( "Failed to rank selected element.", i, tree.rank( shouldBe[i] ) );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#select(int)} to throw an
+	 * IndexOutOfBoundsException for positions outside the tree.
+	 */
+	@Test
+	public void testSelect_IndexOutOfBoundsException()
+	{
+		tree.add( one );
+		try
+		{
+			tree.select( 1 );
+			fail( "Failed to throw IndexOutOfBoundsException." );
+		}
+		catch( IndexOutOfBoundsException e )
+		{
+			assertTrue( true );
+		}
+		try
+		{
+			tree.select( -1 );
+			fail( "Failed to throw IndexOutOfBoundsException." );
+		}
+		catch( IndexOutOfBoundsException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#getHeight()} and
+	 * {@link implementations.BSTree#select(int)} to stay correct as elements are
+	 * removed from both ends of an unbalanced tree.
+	 */
+	@Test
+	public void testAugmentedNodes_AfterRemoval()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( three );
+		tree.add( seven );
+
+		tree.removeMin();
+		tree.removeMax();
+
+		assertEquals( "Failed to update height.", 3, tree.getHeight() );
+		assertEquals( "Failed to update root size.", 4, tree.getRoot().getSize() );
+		assertEquals( "Failed to select after removal.", three, tree.select( 1 ).getElement() );
+		assertEquals( "Failed to select after removal.", six, tree.select( 3 ).getElement() );
+
+		tree.removeMin();
+		tree.removeMin();
+
+		assertEquals( "Failed to update height.", 2, tree.getHeight() );
+		assertEquals( "Failed to update root size.", 2, tree.getRoot().getSize() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#getOrAdd(java.lang.Comparable)}
+	 * to add a missing element and return the resident node for a present one.
+	 */
+	@Test
+	public void testGetOrAdd()
+	{
+		tree.add( four );
+		tree.add( two );
+
+		BSTreeNode<Integer> added = tree.getOrAdd( six );
+		assertEquals( "Failed to add element.", six, added.getElement() );
+		assertEquals( "Failed to update size.", 3, tree.size() );
+		assertSame( "Failed to return the added node.", added, tree.search( six ) );
+
+		BSTreeNode<Integer> found = tree.getOrAdd( two );
+		assertSame( "Failed to return the resident node.", tree.search( two ), found );
+		assertEquals( "Failed to keep size.", 3, tree.size() );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#getOrAdd(java.util.function.ToIntFunction, java.util.function.Supplier)}
+	 * to only call the factory when the key is not already in a balanced tree.
+	 */
+	@Test
+	public void testGetOrAdd_Factory()
+	{
+		BSTree<Integer> balanced = new BSTree<Integer>( true );
+		final int[] created = { 0 };
+		for( int i = 0; i < 100; i++ )
+		{
+			final int key = i % 10;
+			BSTreeNode<Integer> node = balanced.getOrAdd( other -> Integer.compare( key, other ),
+					() -> {
+						created[0]++;
+						return key;
+					} );
+			assertEquals( "Failed to return matching element.", key, (int) node.getElement() );
+		}
+
+		assertEquals( "Factory called for resident keys.", 10, created[0] );
+		assertEquals( "Failed to update size.", 10, balanced.size() );
+		assertTrue( "Tree is not balanced.", balanced.getHeight() <= maxBalancedHeight( 10 ) );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#getOrAdd(java.util.function.ToIntFunction, java.util.function.Supplier)}
+	 * to throw a NullPointerException when the factory returns null, leaving the
+	 * tree unchanged.
+	 */
+	@Test
+	public void testGetOrAdd_NullPointerException()
+	{
+		tree.add( one );
+		try
+		{
+			tree.getOrAdd( other -> Integer.compare( 22, other ), () -> null );
+			fail( "Failed to throw NullPointerException." );
+		}
+		catch( NullPointerException e )
+		{
+			assertTrue( true );
+		}
+		assertEquals( "Failed to keep size.", 1, tree.size() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#fromSorted(java.lang.Comparable[])}
+	 * to build a perfectly height-balanced tree from a sorted array.
+	 */
+	@Test
+	public void testFromSorted_Array()
+	{
+		Integer[] sorted = new Integer[1023];
+		for( int i = 0; i < sorted.length; i++ )
+		{
+			sorted[i] = i;
+		}
+
+		BSTree<Integer> loaded = BSTree.fromSorted( sorted );
+
+		assertFalse( "Tree should not be in balanced mode.", loaded.isBalanced() );
+		assertEquals( "Failed to return correct height.", 10, loaded.getHeight() );
+		assertEquals( "Failed to select middle element.", 511, (int) loaded.select( 511 ).getElement() );
+		assertBalancedContents( loaded, sorted.length );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#fromSorted(utilities.Iterator, boolean)} to
+	 * build a balanced-mode tree from the in-order iterator of another tree,
+	 * leaving out duplicates.
+	 */
+	@Test
+	public void testFromSorted_Iterator()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( five );
+		tree.add( three );
+		tree.add( seven );
+
+		BSTree<Integer> loaded = BSTree.fromSorted( tree.inorderIterator(), true );
+
+		assertTrue( "Tree should be in balanced mode.", loaded.isBalanced() );
+		assertEquals( "Failed to update size.", 7, loaded.size() );
+		assertEquals( "Failed to return correct height.", 3, loaded.getHeight() );
+		assertEquals( "Failed to pick middle element as root.", four, loaded.getRoot().getElement() );
+
+		Integer[] withDuplicates = { one, one, two, three, three, three };
+		loaded = BSTree.fromSorted( withDuplicates, true );
+		assertEquals( "Failed to leave out duplicates.", 3, loaded.size() );
+		assertTrue( "Failed to add after bulk load.", loaded.add( four ) );
+		assertEquals( "Failed to update size.", 4, loaded.size() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#fromSorted(java.lang.Comparable[])}
+	 * to throw an IllegalArgumentException for unsorted input and a
+	 * NullPointerException for a null element.
+	 */
+	@Test
+	public void testFromSorted_Exceptions()
+	{
+		try
+		{
+			BSTree.fromSorted( new Integer[] { one, three, two } );
+			fail( "Failed to throw IllegalArgumentException." );
+		}
+		catch( IllegalArgumentException e )
+		{
+			assertTrue( true );
+		}
+		try
+		{
+			BSTree.fromSorted( new Integer[] { one, null } );
+			fail( "Failed to throw NullPointerException." );
+		}
+		catch( NullPointerException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#inorderIterator(java.lang.Comparable, boolean, java.lang.Comparable, boolean)}
+	 * to iterate over bounded ranges with inclusive and exclusive bounds.
+	 */
+	@Test
+	public void testInorderIterator_Range()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( five );
+		tree.add( three );
+		tree.add( seven );
+
+		assertIteratesOver( new Integer[] { two, three, four, five },
+				tree.inorderIterator( two, true, five, true ) );
+		assertIteratesOver( new Integer[] { three, four },
+				tree.inorderIterator( two, false, five, false ) );
+		assertIteratesOver( new Integer[] { two, three, four, five },
+				tree.inorderIterator( 15, true, 60, false ) );
+		assertIteratesOver( new Integer[] {}, tree.inorderIterator( 34, true, 43, true ) );
+		assertIteratesOver( new Integer[] { one, two, three, four, five, six, seven },
+				tree.inorderIterator( null, false, null, false ) );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#tailIterator(java.lang.Comparable, boolean)}
+	 * and {@link implementations.BSTree#headIterator(java.lang.Comparable, boolean)}
+	 * to iterate from a lower bound to the end and from the start to an upper
+	 * bound.
+	 */
+	@Test
+	public void testTailAndHeadIterator()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( five );
+		tree.add( three );
+		tree.add( seven );
+
+		assertIteratesOver( new Integer[] { five, six, seven }, tree.tailIterator( five, true ) );
+		assertIteratesOver( new Integer[] { six, seven }, tree.tailIterator( five, false ) );
+		assertIteratesOver( new Integer[] { one, two, three }, tree.headIterator( three, true ) );
+		assertIteratesOver( new Integer[] { one, two }, tree.headIterator( three, false ) );
+		assertIteratesOver( new Integer[] {}, tree.headIterator( one, false ) );
+	}
+
+	/**
+	 * Asserts that an iterator returns exactly the given elements, in order.
+	 * 
+	 * @param shouldBe the expected elements
+	 * @param it       the iterator to check
+	 */
+	private void assertIteratesOver( Integer[] shouldBe, Iterator<Integer> it )
+	{
+		for( Integer expected : shouldBe )
+		{
+			assertTrue( "Iterator ended early.", it.hasNext() );
+			assertEquals( "Iterator is out of order.", expected, it.next() );
+		}
+		assertFalse( "Iterator has extra elements.", it.hasNext() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#snapshot()} to keep a
+	 * snapshot of a balanced tree frozen while the tree is changed by adds that
+	 * rotate nodes and by removals from both ends.
+	 */
+	@Test
+	public void testSnapshot_Frozen()
+	{
+		BSTree<Integer> balanced = new BSTree<Integer>( true );
+		for( int i = 0; i < 100; i++ )
+		{
+			balanced.add( i );
+		}
+
+		BSTree<Integer> snapshot = balanced.snapshot();
+		int height = snapshot.getHeight();
+		for( int i = 100; i < 1000; i++ )
+		{
+			balanced.add( i );
+		}
+		balanced.removeMin();
+		balanced.removeMax();
+
+		assertTrue( "Snapshot should be read-only.", snapshot.isReadOnly() );
+		assertEquals( "Snapshot size changed.", 100, snapshot.size() );
+		assertEquals( "Snapshot height changed.", height, snapshot.getHeight() );
+		assertBalancedContents( snapshot, 100 );
+		assertNull( "Snapshot sees later adds.", snapshot.search( 500 ) );
+
+		assertEquals( "Failed to update size.", 998, balanced.size() );
+		assertEquals( "Failed to remove minimum value.", 1, (int) balanced.select( 0 ).getElement() );
+		assertTrue( "Tree is not balanced.", balanced.getHeight() <= maxBalancedHeight( 998 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#snapshot()} to reject changes
+	 * made through a snapshot.
+	 */
+	@Test
+	public void testSnapshot_ReadOnly()
+	{
+		tree.add( one );
+		BSTree<Integer> snapshot = tree.snapshot();
+		try
+		{
+			snapshot.add( two );
+			fail( "Failed to throw UnsupportedOperationException." );
+		}
+		catch( UnsupportedOperationException e )
+		{
+			assertTrue( true );
+		}
+		try
+		{
+			snapshot.removeMin();
+			fail( "Failed to throw UnsupportedOperationException." );
+		}
+		catch( UnsupportedOperationException e )
+		{
+			assertTrue( true );
+		}
+		assertSame( "Snapshot of a snapshot should be itself.", snapshot, snapshot.snapshot() );
+		assertEquals( "Failed to keep size.", 1, snapshot.size() );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#getOrAdd(java.util.function.ToIntFunction, java.util.function.Supplier, java.util.function.UnaryOperator)}
+	 * to copy an element shared with a snapshot once, and only once, before it
+	 * is handed out for changing.
+	 */
+	@Test
+	public void testSnapshot_CopierOncePerSnapshot()
+	{
+		BSTree<Tally> tallies = new BSTree<Tally>();
+		tallies.add( new Tally( four ) );
+		tallies.add( new Tally( two ) );
+		tallies.add( new Tally( six ) );
+
+		BSTree<Tally> snapshot = tallies.snapshot();
+		final int[] copies = { 0 };
+		for( int i = 0; i < 3; i++ )
+		{
+			BSTreeNode<Tally> node = tallies.getOrAdd( other -> Integer.compare( 22, other.key ),
+					() -> new Tally( two ), other -> {
+						copies[0]++;
+						return new Tally( other );
+					} );
+			node.getElement().count++;
+		}
+
+		assertEquals( "Copier should run once per snapshot.", 1, copies[0] );
+		assertEquals( "Failed to change live element.", 3, tallies.search( new Tally( two ) ).getElement().count );
+		assertEquals( "Snapshot element changed.", 0, snapshot.search( new Tally( two ) ).getElement().count );
+		assertEquals( "Failed to keep size.", 3, tallies.size() );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#getOrAdd(java.util.function.ToIntFunction, java.util.function.Supplier, java.util.function.UnaryOperator)}
+	 * to copy an element shared with a snapshot even after an add has already
+	 * copied its node onto the path to the new element.
+	 */
+	@Test
+	public void testSnapshot_CopierAfterPathCopy()
+	{
+		BSTree<Tally> tallies = new BSTree<Tally>();
+		tallies.add( new Tally( four ) );
+		tallies.add( new Tally( two ) );
+		tallies.add( new Tally( six ) );
+
+		BSTree<Tally> snapshot = tallies.snapshot();
+		tallies.add( new Tally( one ) );
+		for( int key : new int[] { four, two } )
+		{
+			BSTreeNode<Tally> node = tallies.getOrAdd( other -> Integer.compare( key, other.key ),
+					() -> new Tally( key ), Tally::new );
+			node.getElement().count++;
+		}
+
+		assertEquals( "Failed to change live element.", 1, tallies.search( new Tally( four ) ).getElement().count );
+		assertEquals( "Failed to change live element.", 1, tallies.search( new Tally( two ) ).getElement().count );
+		assertEquals( "Snapshot element changed.", 0, snapshot.search( new Tally( four ) ).getElement().count );
+		assertEquals( "Snapshot element changed.", 0, snapshot.search( new Tally( two ) ).getElement().count );
+		assertNull( "Snapshot sees later adds.", snapshot.search( new Tally( one ) ) );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#merge(BSTree, BSTree, java.util.function.BinaryOperator)}
+	 * to give a tree that copies the elements it shares with its inputs, and so
+	 * with their snapshots, before they are handed out for changing.
+	 */
+	@Test
+	public void testSnapshot_CopierAfterMerge()
+	{
+		BSTree<Tally> first = new BSTree<Tally>( true );
+		first.add( new Tally( four ) );
+		first.add( new Tally( two ) );
+		BSTree<Tally> second = new BSTree<Tally>( true );
+		second.add( new Tally( six ) );
+
+		BSTree<Tally> snapshot = first.snapshot();
+		BSTree<Tally> merged = BSTree.merge( first, second, ( a, b ) -> new Tally( a ) );
+		final int[] copies = { 0 };
+		for( int key : new int[] { two, two, six } )
+		{
+			BSTreeNode<Tally> node = merged.getOrAdd( other -> Integer.compare( key, other.key ),
+					() -> new Tally( key ), other -> {
+						copies[0]++;
+						return new Tally( other );
+					} );
+			node.getElement().count++;
+		}
+
+		assertEquals( "Copier should run once per shared element.", 2, copies[0] );
+		assertEquals( "Failed to change merged element.", 2, merged.search( new Tally( two ) ).getElement().count );
+		assertEquals( "Snapshot element changed.", 0, snapshot.search( new Tally( two ) ).getElement().count );
+		assertEquals( "Input element changed.", 0, first.search( new Tally( two ) ).getElement().count );
+		assertEquals( "Input element changed.", 0, second.search( new Tally( six ) ).getElement().count );
+	}
+
+	/**
+	 * Mutable element ordered by its key, used to check that snapshots keep the
+	 * element state they were taken with.
+	 */
+	private static class Tally implements Comparable<Tally>
+	{
+		private final int key;
+		private int count;
+
+		private Tally( int key )
+		{
+			this.key = key;
+		}
+
+		private Tally( Tally other )
+		{
+			this.key = other.key;
+			this.count = other.count;
+		}
+
+		@Override
+		public int compareTo( Tally other )
+		{
+			return Integer.compare( key, other.key );
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#forEachInorder(java.util.function.Consumer)}
+	 * to visit every element in the natural order.
+	 */
+	@Test
+	public void testForEachInorder()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( five );
+		tree.add( three );
+		tree.add( seven );
+
+		final ArrayList<Integer> visited = new ArrayList<Integer>();
+		tree.forEachInorder( visited::add );
+
+		assertEquals( "Failed to visit elements in order.",
+				Arrays.asList( one, two, three, four, five, six, seven ), visited );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#postorderIterator()} to match
+	 * a recursive post-order walk on trees with one-sided and missing children.
+	 */
+	@Test
+	public void testPostorderIterator_Shapes()
+	{
+		int[] order = { 50, 20, 80, 10, 30, 25, 27, 90, 85, 95, 99, 5 };
+		for( int value : order )
+		{
+			tree.add( value );
+		}
+
+		ArrayList<Integer> expected = new ArrayList<Integer>();
+		postorder( tree.getRoot(), expected );
+		ArrayList<Integer> actual = new ArrayList<Integer>();
+		Iterator<Integer> it = tree.postorderIterator();
+		while( it.hasNext() )
+		{
+			actual.add( it.next() );
+		}
+
+		assertEquals( "Postorder iterator is out of order ", expected, actual );
+	}
+
+	/**
+	 * Lists the elements of a subtree in post-order recursively.
+	 * 
+	 * @param node  the root of the subtree
+	 * @param order the list to append the elements to
+	 */
+	private void postorder( BSTreeNode<Integer> node, ArrayList<Integer> order )
+	{
+		if( node != null )
+		{
+			postorder( node.getLeft(), order );
+			postorder( node.getRight(), order );
+			order.add( node.getElement() );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#stream()} and
+	 * {@link implementations.BSTree#parallelStream()} to stream the elements in
+	 * their natural order, including through ordered parallel collection.
+	 */
+	@Test
+	public void testStreams()
+	{
+		BSTree<Integer> balanced = new BSTree<Integer>( true );
+		ArrayList<Integer> expected = new ArrayList<Integer>();
+		for( int i = 0; i < 5000; i++ )
+		{
+			balanced.add( i );
+			expected.add( i );
+		}
+
+		assertEquals( "Failed to stream in order.", expected,
+				balanced.stream().collect( Collectors.toList() ) );
+		assertEquals( "Failed to collect parallel stream in order.", expected,
+				balanced.parallelStream().collect( Collectors.toList() ) );
+		assertEquals( "Failed to sum parallel stream.", 4999L * 5000 / 2,
+				balanced.parallelStream().mapToLong( Integer::longValue ).sum() );
+		assertEquals( "Failed to stream empty tree.", 0, tree.stream().count() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#spliterator()} to report its
+	 * characteristics and split a balanced tree into exact, even halves.
+	 */
+	@Test
+	public void testSpliterator()
+	{
+		Integer[] sorted = new Integer[1023];
+		for( int i = 0; i < sorted.length; i++ )
+		{
+			sorted[i] = i;
+		}
+		BSTree<Integer> loaded = BSTree.fromSorted( sorted );
+
+		Spliterator<Integer> right = loaded.spliterator();
+		assertTrue( "Failed to report characteristics.", right.hasCharacteristics( Spliterator.SORTED
+				| Spliterator.DISTINCT | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL ) );
+		assertNull( "Natural ordering should have no comparator.", right.getComparator() );
+
+		Spliterator<Integer> left = right.trySplit();
+		assertEquals( "Failed to split evenly.", 511, left.getExactSizeIfKnown() );
+		assertEquals( "Failed to split evenly.", 512, right.getExactSizeIfKnown() );
+
+		final ArrayList<Integer> visited = new ArrayList<Integer>();
+		left.forEachRemaining( visited::add );
+		right.forEachRemaining( visited::add );
+		assertEquals( "Failed to keep order across splits.", Arrays.asList( sorted ), visited );
+		assertTrue( "Snapshot spliterator should be immutable.",
+				loaded.snapshot().spliterator().hasCharacteristics( Spliterator.IMMUTABLE ) );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#merge(BSTree, BSTree, java.util.function.BinaryOperator)}
+	 * to interleave both trees, combine shared elements and leave the inputs
+	 * unchanged.
+	 */
+	@Test
+	public void testMerge()
+	{
+		BSTree<Tally> evens = new BSTree<Tally>( true );
+		BSTree<Tally> thirds = new BSTree<Tally>( true );
+		for( int i = 0; i < 3000; i++ )
+		{
+			if( i % 2 == 0 )
+			{
+				evens.getOrAdd( new Tally( i ) ).getElement().count++;
+			}
+			if( i % 3 == 0 )
+			{
+				thirds.getOrAdd( new Tally( i ) ).getElement().count++;
+			}
+		}
+
+		BSTree<Tally> merged = BSTree.merge( evens, thirds, ( a, b ) -> {
+			Tally sum = new Tally( a );
+			sum.count += b.count;
+			return sum;
+		} );
+		assertEquals( "Failed to merge all elements.", 2000, merged.size() );
+		assertTrue( "Merged tree should be balanced.", merged.isBalanced() );
+		assertTrue( "Merged tree is not balanced, height " + merged.getHeight(),
+				merged.getHeight() <= maxBalancedHeight( 2000 ) );
+
+		int previous = -1;
+		Iterator<Tally> it = merged.inorderIterator();
+		while( it.hasNext() )
+		{
+			Tally tally = it.next();
+			assertTrue( "Merged tree is out of order.", tally.key > previous );
+			int expected = ( tally.key % 2 == 0 ? 1 : 0 ) + ( tally.key % 3 == 0 ? 1 : 0 );
+			assertEquals( "Failed to combine shared element " + tally.key, expected, tally.count );
+			previous = tally.key;
+		}
+		assertEquals( "Failed to leave the first tree unchanged.", 1,
+				evens.search( new Tally( 0 ) ).getElement().count );
+		assertEquals( "Failed to leave the first tree unchanged.", 1500, evens.size() );
+		assertEquals( "Failed to leave the second tree unchanged.", 1000, thirds.size() );
+
+		BSTree<Integer> empty = BSTree.merge( new BSTree<Integer>(), new BSTree<Integer>(), ( a, b ) -> a );
+		assertTrue( "Merging empty trees should be empty.", empty.isEmpty() );
+		try
+		{
+			tree.add( one );
+			BSTree.merge( tree, tree, ( a, b ) -> null );
+			fail( "Failed to reject a null combined element." );
+		}
+		catch( NullPointerException e )
+		{
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#rebalance()} to rebuild a
+	 * skewed tree into a minimum-height tree with correct sizes, leaving an
+	 * earlier snapshot untouched.
+	 */
+	@Test
+	public void testRebalance()
+	{
+		for( int count : new int[] { 0, 1, 2, 3, 7, 8, 1000, 1023, 1024 } )
+		{
+			BSTree<Integer> skewed = new BSTree<Integer>();
+			for( int i = 0; i < count; i++ )
+			{
+				skewed.add( i );
+			}
+			BSTree<Integer> before = skewed.snapshot();
+
+			skewed.rebalance();
+			int minimumHeight = 32 - Integer.numberOfLeadingZeros( count );
+			assertEquals( "Failed to reach minimum height for " + count, minimumHeight, skewed.getHeight() );
+			assertBalancedContents( skewed, count );
+			if( count > 0 )
+			{
+				assertStoredShape( skewed.getRoot() );
+			}
+			for( int i = 0; i < count; i++ )
+			{
+				assertEquals( "Failed to keep sizes for rank.", i, skewed.rank( i ) );
+				assertEquals( "Failed to keep sizes for select.", i, (int) skewed.select( i ).getElement() );
+			}
+			assertEquals( "Failed to leave snapshot untouched.", count, before.getHeight() );
+			assertEquals( "Failed to leave snapshot untouched.", count, before.size() );
+		}
+
+		BSTree<Integer> avl = new BSTree<Integer>( true );
+		for( int i = 0; i < 100; i++ )
+		{
+			avl.add( ( i * 37 ) % 100 );
+		}
+		avl.rebalance();
+		assertStoredShape( avl.getRoot() );
+		for( int i = 100; i < 1000; i++ )
+		{
+			avl.add( i );
+		}
+		assertBalancedContents( avl, 1000 );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#rebalanceIfTaller(double)}
+	 * to rebuild only trees taller than the given factor allows.
+	 */
+	@Test
+	public void testRebalanceIfTaller()
+	{
+		BSTree<Integer> skewed = new BSTree<Integer>();
+		for( int i = 0; i < 40; i++ )
+		{
+			skewed.add( i );
+		}
+		assertTrue( "Failed to rebalance a skewed tree.", skewed.rebalanceIfTaller( 2 ) );
+		assertEquals( "Failed to reach minimum height.", 6, skewed.getHeight() );
+		assertFalse( "Failed to leave a minimal tree alone.", skewed.rebalanceIfTaller( 1 ) );
+
+		BSTree<Integer> avl = new BSTree<Integer>( true );
+		for( int i = 0; i < 40; i++ )
+		{
+			avl.add( i );
+		}
+		assertFalse( "Failed to leave an AVL tree alone.", avl.rebalanceIfTaller( 1.5 ) );
+
+		try
+		{
+			avl.rebalanceIfTaller( 0.5 );
+			fail( "Failed to throw IllegalArgumentException." );
+		}
+		catch( IllegalArgumentException e )
+		{
+		}
+		try
+		{
+			avl.snapshot().rebalance();
+			fail( "Failed to throw UnsupportedOperationException." );
+		}
+		catch( UnsupportedOperationException e )
+		{
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#depthHistogram()},
+	 * {@link implementations.BSTree#getAverageDepth()} and
+	 * {@link implementations.BSTree#getHeightRatio()} on known shapes.
+	 */
+	@Test
+	public void testShapeDiagnostics()
+	{
+		assertEquals( "Empty tree should have no depths.", 0, tree.depthHistogram().length );
+		assertEquals( "Empty tree should have no depth.", 0, tree.getAverageDepth(), 0 );
+		assertEquals( "Empty tree should have no ratio.", 0, tree.getHeightRatio(), 0 );
+
+		BSTree<Integer> perfect = BSTree.fromSorted( new Integer[] { 1, 2, 3, 4, 5, 6, 7 } );
+		assertArrayEquals( "Failed to count nodes by depth.", new int[] { 1, 2, 4 }, perfect.depthHistogram() );
+		assertEquals( "Failed to average depths.", 10.0 / 7, perfect.getAverageDepth(), 1e-9 );
+		assertEquals( "Perfect tree should have ratio 1.", 1.0, perfect.getHeightRatio(), 1e-9 );
+
+		for( int i = 0; i < 7; i++ )
+		{
+			tree.add( i );
+		}
+		assertArrayEquals( "Failed to count nodes by depth.", new int[] { 1, 1, 1, 1, 1, 1, 1 },
+				tree.depthHistogram() );
+		assertEquals( "Failed to average depths.", 3.0, tree.getAverageDepth(), 1e-9 );
+		assertEquals( "Failed to compute ratio.", 7.0 / 3, tree.getHeightRatio(), 1e-9 );
+	}
+
+	/**
+	 * Test method for the search and add comparison counters.
+	 */
+	@Test
+	public void testOperationCounters()
+	{
+		BSTree<Integer> perfect = BSTree.fromSorted( new Integer[] { 1, 2, 3, 4, 5, 6, 7 } );
+		perfect.search( 4 );
+		perfect.contains( 7 );
+		perfect.search( 8 );
+		assertEquals( "Failed to count searches.", 3, perfect.getSearchCount() );
+		assertEquals( "Failed to count search comparisons.", 1 + 3 + 3, perfect.getSearchComparisons() );
+
+		perfect.add( 6 );
+		perfect.add( 0 );
+		assertEquals( "Failed to count adds.", 2, perfect.getAddCount() );
+		assertEquals( "Failed to count inserts apart from hits.", 1, perfect.getInsertCount() );
+		assertEquals( "Failed to count add comparisons.", 2 + 3, perfect.getAddComparisons() );
+
+		perfect.resetCounters();
+		assertEquals( "Failed to reset searches.", 0, perfect.getSearchCount() );
+		assertEquals( "Failed to reset search comparisons.", 0, perfect.getSearchComparisons() );
+		assertEquals( "Failed to reset adds.", 0, perfect.getAddCount() );
+		assertEquals( "Failed to reset inserts.", 0, perfect.getInsertCount() );
+		assertEquals( "Failed to reset add comparisons.", 0, perfect.getAddComparisons() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#getSearchCount()} and
+	 * {@link implementations.BSTree#getSearchComparisons()} to count every search
+	 * made on a snapshot shared by several threads.
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	@Test
+	public void testOperationCounters_SharedSnapshot() throws InterruptedException
+	{
+		final BSTree<Integer> snapshot = BSTree.fromSorted( new Integer[] { 1, 2, 3, 4, 5, 6, 7 } ).snapshot();
+		Thread[] threads = new Thread[4];
+		for( int t = 0; t < threads.length; t++ )
+		{
+			threads[t] = new Thread( () -> {
+				for( int i = 0; i < 50000; i++ )
+				{
+					snapshot.search( 4 );
+				}
+			} );
+			threads[t].start();
+		}
+		for( Thread thread : threads )
+		{
+			thread.join();
+		}
+
+		assertEquals( "Failed to count every search.", 200000, snapshot.getSearchCount() );
+		assertEquals( "Failed to count every comparison.", 200000, snapshot.getSearchComparisons() );
+	}
+
+	/**
+	 * Asserts that a balanced tree holds exactly the values 0 to count - 1, in
+	 * order, and is no taller than an AVL tree of that size can be.
+	 * 
+	 * @param balanced the tree to check
+	 * @param count    the number of values added to the tree
+	 */
+	private void assertBalancedContents( BSTree<Integer> balanced, int count )
+	{
+		assertEquals( "Failed to update size correctly.", count, balanced.size() );
+		assertTrue( "Tree is not balanced, height " + balanced.getHeight(),
+				balanced.getHeight() <= maxBalancedHeight( count ) );
+
+		Iterator<Integer> it = balanced.inorderIterator();
+		for( int i = 0; i < count; i++ )
+		{
+			assertEquals( "In-order iterator is out of order.", i, (int) it.next() );
+			assertNotNull( "Failed to find element.", balanced.search( i ) );
+		}
+		assertFalse( "In-order iterator has extra elements.", it.hasNext() );
+	}
+
+	/**
+	 * Asserts that every node of a subtree stores its true height and size.
+	 * 
+	 * @param node the root of the subtree, or null
+	 * @return the number of nodes in the subtree
+	 */
+	private int assertStoredShape( BSTreeNode<Integer> node )
+	{
+		if( node == null )
+		{
+			return 0;
+		}
+		int size = 1 + assertStoredShape( node.getLeft() ) + assertStoredShape( node.getRight() );
+		int left = node.getLeft() == null ? 0 : node.getLeft().getHeight();
+		int right = node.getRight() == null ? 0 : node.getRight().getHeight();
+		assertEquals( "Failed to store height of " + node.getElement(), 1 + Math.max( left, right ),
+				node.getHeight() );
+		assertEquals( "Failed to store size of " + node.getElement(), size, node.getSize() );
+		return size;
+	}
+
+	/**
+	 * Returns the greatest height an AVL tree with the given number of nodes can
+	 * have.
+	 * 
+	 * @param count the number of nodes
+	 * @return the worst-case AVL height
+	 */
+	private int maxBalancedHeight( int count )
+	{
+		return (int) Math.floor( 1.4405 * Math.log( count + 2 ) / Math.log( 2 ) - 0.3277 );
+	}
 }
@@ -0,0 +1,241 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import utilities.Iterator;
+
+import implementations.BTree;
+
+/**
+ * Class Description: Unit tests for the B-tree implementation of the
+ * BSTreeADT.
+ */
+
+public class BTreeTest
+{
+	// Attributes
+	private BTree<Integer> tree;
+
+	/**
+	 * Initializes a tree with the smallest fanout, so a few elements already
+	 * split and merge nodes, before each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		tree = new BTree<Integer>( 4 );
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		tree = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.BTree#add(java.lang.Comparable)}
+	 * and the iterators on a small tree whose shape is known.
+	 */
+	@Test
+	public void testAddAndIterators()
+	{
+		for( int value = 1; value <= 7; value++ )
+		{
+			assertTrue( tree.add( value ) );
+		}
+		assertFalse( "Failed to reject duplicate.", tree.add( 4 ) );
+
+		// The root holds 2 and 4 above the leaves [1], [3] and [5, 6, 7]
+		assertEquals( "Failed to update size.", 7, tree.size() );
+		assertEquals( "Failed to return correct height.", 2, tree.getHeight() );
+		assertEquals( "Failed to return root element.", 4, (int) tree.getRoot().getElement() );
+		assertIteratesOver( new int[] { 1, 2, 3, 4, 5, 6, 7 }, tree.inorderIterator() );
+		assertIteratesOver( new int[] { 2, 4, 1, 3, 5, 6, 7 }, tree.preorderIterator() );
+		assertIteratesOver( new int[] { 1, 3, 5, 6, 7, 2, 4 }, tree.postorderIterator() );
+	}
+
+	/**
+	 * Test method for random adds, searches and removals at several fanouts,
+	 * checked against a TreeSet.
+	 */
+	@Test
+	public void testAgainstTreeSet()
+	{
+		Random random = new Random( 13 );
+		for( int fanout : new int[] { 4, 6, 16, 64 } )
+		{
+			BTree<Integer> t = new BTree<Integer>( fanout );
+			TreeSet<Integer> expected = new TreeSet<Integer>();
+			for( int i = 0; i < 20000; i++ )
+			{
+				int operation = random.nextInt( 10 );
+				if( operation == 0 )
+				{
+					Integer min = expected.pollFirst();
+					assertEquals( "Failed to remove minimum value.", min,
+							min == null ? null : t.removeMin().getElement() );
+				}
+				else if( operation == 1 )
+				{
+					Integer max = expected.pollLast();
+					assertEquals( "Failed to remove maximum value.", max,
+							max == null ? null : t.removeMax().getElement() );
+				}
+				else
+				{
+					int value = random.nextInt( 5000 );
+					assertEquals( "Failed to add value " + value, expected.add( value ), t.add( value ) );
+				}
+			}
+			assertEquals( "Failed to update size.", expected.size(), t.size() );
+			for( int value = 0; value < 5000; value++ )
+			{
+				assertEquals( "Failed to search for " + value, expected.contains( value ), t.contains( value ) );
+			}
+
+			Iterator<Integer> it = t.inorderIterator();
+			for( Integer value : expected )
+			{
+				assertEquals( "In-order iterator is out of order.", value, it.next() );
+			}
+			assertFalse( "In-order iterator has extra elements.", it.hasNext() );
+
+			ArrayList<Integer> scanned = new ArrayList<Integer>();
+			t.forEachInorder( scanned::add );
+			assertEquals( "Failed to scan in order.", new ArrayList<Integer>( expected ), scanned );
+
+			// Every node but the root is at least half full
+			double levels = 1 + Math.log( ( t.size() + 1 ) / 2.0 ) / Math.log( fanout / 2 );
+			assertTrue( "Tree is too tall, height " + t.getHeight(), t.getHeight() <= levels );
+
+			assertEquals( "Pre-order missed elements.", t.size(), count( t.preorderIterator() ) );
+			assertEquals( "Post-order missed elements.", t.size(), count( t.postorderIterator() ) );
+
+			while( !t.isEmpty() )
+			{
+				t.removeMin();
+			}
+			assertEquals( "Failed to shrink to an empty tree.", 0, t.getHeight() );
+			assertNull( "Failed to return null.", t.removeMax() );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BTree#BTree(int)} to reject a
+	 * fanout nodes cannot be split and merged with.
+	 */
+	@Test
+	public void testConstructor_IllegalArgumentException()
+	{
+		for( int fanout : new int[] { 2, 3, 5 } )
+		{
+			try
+			{
+				new BTree<Integer>( fanout );
+				fail( "Failed to throw IllegalArgumentException." );
+			}
+			catch( IllegalArgumentException e )
+			{
+				assertTrue( true );
+			}
+		}
+		assertEquals( "Failed to keep fanout.", 4, tree.getFanout() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BTree#getRoot()} to throw
+	 * NullPointerException when getting the root of an empty tree.
+	 */
+	@Test
+	public void testGetRoot_NullPointerException()
+	{
+		try
+		{
+			tree.getRoot();
+			fail( "Failed to throw NullPointerException." );
+		}
+		catch( NullPointerException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for serialization, which must keep the fanout and elements.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	@SuppressWarnings( "unchecked" )
+	public void testSerialization() throws Exception
+	{
+		for( int value = 0; value < 100; value++ )
+		{
+			tree.add( value );
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream( bytes );
+		out.writeObject( tree );
+		out.close();
+		ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+		BTree<Integer> copy = (BTree<Integer>) in.readObject();
+
+		assertEquals( "Failed to keep fanout.", 4, copy.getFanout() );
+		assertEquals( "Failed to keep size.", 100, copy.size() );
+		assertEquals( "Failed to find element.", 42, (int) copy.search( 42 ).getElement() );
+		assertEquals( "Failed to remove maximum value.", 99, (int) copy.removeMax().getElement() );
+	}
+
+	/**
+	 * Asserts that an iterator returns exactly the given elements, in order.
+	 *
+	 * @param shouldBe the expected elements
+	 * @param it       the iterator to check
+	 */
+	private void assertIteratesOver( int[] shouldBe, Iterator<Integer> it )
+	{
+		for( int expected : shouldBe )
+		{
+			assertTrue( "Iterator ended early.", it.hasNext() );
+			assertEquals( "Iterator is out of order.", expected, (int) it.next() );
+		}
+		assertFalse( "Iterator has extra elements.", it.hasNext() );
+	}
+
+	/**
+	 * Counts the elements left in an iterator.
+	 *
+	 * @param it the iterator
+	 * @return the number of elements it returned
+	 */
+	private int count( Iterator<Integer> it )
+	{
+		int count = 0;
+		while( it.hasNext() )
+		{
+			it.next();
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,218 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import utilities.Iterator;
+
+import implementations.BSTreeNode;
+import implementations.ConcurrentBSTree;
+
+/**
+ * Class Description: Unit tests for the skip-list-backed, thread-safe
+ * implementation of the BSTreeADT.
+ */
+
+public class ConcurrentBSTreeTest
+{
+	// Attributes
+	private ConcurrentBSTree<Integer> tree;
+
+	/**
+	 * Initializes a new ConcurrentBSTree instance before each test.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		tree = new ConcurrentBSTree<Integer>();
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		tree = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#add(java.lang.Comparable)}
+	 * and {@link implementations.ConcurrentBSTree#search(java.lang.Comparable)} to
+	 * add elements, reject duplicates and return the resident node.
+	 */
+	@Test
+	public void testAddAndSearch()
+	{
+		assertTrue( tree.add( 44 ) );
+		assertTrue( tree.add( 22 ) );
+		assertFalse( "Failed to reject duplicate.", tree.add( 44 ) );
+
+		BSTreeNode<Integer> node = tree.search( 22 );
+		assertEquals( "Failed to find element.", 22, (int) node.getElement() );
+		assertSame( "Failed to return the resident node.", node, tree.getOrAdd( 22 ) );
+		assertNull( "Failed to return null.", tree.search( 33 ) );
+		assertEquals( "Failed to update size.", 2, tree.size() );
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#add(java.lang.Comparable)}
+	 * to throw a NullPointerException when passing a null.
+	 */
+	@Test
+	public void testAdd_NullPointerException()
+	{
+		try
+		{
+			tree.add( null );
+			fail( "Add method failed to throw NullPointerException." );
+		}
+		catch( NullPointerException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#getRoot()},
+	 * {@link implementations.ConcurrentBSTree#getHeight()} and the pre-order and
+	 * post-order iterators to describe the balanced tree over the contents.
+	 */
+	@Test
+	public void testBalancedShape()
+	{
+		for( int i = 1; i <= 7; i++ )
+		{
+			tree.add( i * 11 );
+		}
+
+		assertEquals( "Failed to return the median as root.", 44, (int) tree.getRoot().getElement() );
+		assertSame( "Failed to return the resident node.", tree.search( 44 ), tree.getRoot() );
+		assertNull( "Root should be detached.", tree.getRoot().getLeft() );
+		assertNull( "Root should be detached.", tree.getRoot().getRight() );
+		assertEquals( "Failed to return correct height.", 3, tree.getHeight() );
+		assertIteratesOver( new int[] { 44, 22, 11, 33, 66, 55, 77 }, tree.preorderIterator() );
+		assertIteratesOver( new int[] { 11, 33, 22, 55, 77, 66, 44 }, tree.postorderIterator() );
+
+		tree.add( 88 );
+		assertEquals( "Failed to return the upper median as root.", 55, (int) tree.getRoot().getElement() );
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#getRoot()} to throw
+	 * NullPointerException when getting the root of an empty tree.
+	 */
+	@Test
+	public void testGetRoot_NullPointerException()
+	{
+		try
+		{
+			tree.getRoot();
+			fail( "Failed to throw NullPointerException." );
+		}
+		catch( NullPointerException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#removeMin()},
+	 * {@link implementations.ConcurrentBSTree#removeMax()} and
+	 * {@link implementations.ConcurrentBSTree#clear()}.
+	 */
+	@Test
+	public void testRemoveMinMaxAndClear()
+	{
+		tree.add( 44 );
+		tree.add( 22 );
+		tree.add( 66 );
+
+		assertEquals( "Failed to remove minimum value.", 22, (int) tree.removeMin().getElement() );
+		assertEquals( "Failed to remove maximum value.", 66, (int) tree.removeMax().getElement() );
+		assertEquals( "Failed to update size.", 1, tree.size() );
+
+		tree.clear();
+		assertTrue( "Failed to clear tree.", tree.isEmpty() );
+		assertEquals( "Failed to clear size.", 0, tree.size() );
+		assertNull( "Failed to return null.", tree.removeMin() );
+		assertNull( "Failed to return null.", tree.removeMax() );
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#add(java.lang.Comparable)}
+	 * and {@link implementations.ConcurrentBSTree#inorderIterator()} to add
+	 * overlapping ranges from many threads without losing or duplicating
+	 * elements, and to iterate in order while writers are still running.
+	 * 
+	 * @throws java.lang.InterruptedException
+	 */
+	@Test
+	public void testConcurrentAdd() throws InterruptedException
+	{
+		final int threads = 8;
+		final int perThread = 20000;
+		ArrayList<Thread> writers = new ArrayList<Thread>();
+		for( int t = 0; t < threads; t++ )
+		{
+			final int offset = t * perThread / 2;
+			Thread writer = new Thread( () -> {
+				for( int i = 0; i < perThread; i++ )
+				{
+					tree.add( offset + i );
+				}
+			} );
+			writers.add( writer );
+			writer.start();
+		}
+
+		// Iterate while the writers are running; order must still hold
+		Iterator<Integer> it = tree.inorderIterator();
+		int previous = -1;
+		while( it.hasNext() )
+		{
+			int current = it.next();
+			assertTrue( "In-order iterator is out of order.", current > previous );
+			previous = current;
+		}
+
+		for( Thread writer : writers )
+		{
+			writer.join();
+		}
+
+		int expected = ( threads - 1 ) * perThread / 2 + perThread;
+		assertEquals( "Failed to update size.", expected, tree.size() );
+		it = tree.inorderIterator();
+		for( int i = 0; i < expected; i++ )
+		{
+			assertEquals( "In-order iterator is out of order.", i, (int) it.next() );
+		}
+		assertFalse( "In-order iterator has extra elements.", it.hasNext() );
+	}
+
+	/**
+	 * Asserts that an iterator returns exactly the given elements, in order.
+	 * 
+	 * @param shouldBe the expected elements
+	 * @param it       the iterator to check
+	 */
+	private void assertIteratesOver( int[] shouldBe, Iterator<Integer> it )
+	{
+		for( int expected : shouldBe )
+		{
+			assertTrue( "Iterator ended early.", it.hasNext() );
+			assertEquals( "Iterator is out of order.", expected, (int) it.next() );
+		}
+		assertFalse( "Iterator has extra elements.", it.hasNext() );
+	}
+}
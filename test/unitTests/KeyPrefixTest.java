@@ -0,0 +1,67 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import implementations.KeyPrefix;
+
+/**
+ * Class Description: Unit tests for the packed key prefixes, which must always
+ * agree with String.compareTo.
+ */
+
+public class KeyPrefixTest
+{
+	/**
+	 * Test method for {@link implementations.KeyPrefix#of(String)} on keys of
+	 * every length up to and past the packed characters.
+	 */
+	@Test
+	public void testOf()
+	{
+		assertEquals( "Failed to pack empty key.", 0L, KeyPrefix.of( "" ) );
+		assertEquals( "Failed to pack short key.", 0x6162000000000000L, KeyPrefix.of( "ab" ) );
+		assertEquals( "Failed to pack eight characters.", 0x6162636465666768L, KeyPrefix.of( "abcdefgh" ) );
+		assertEquals( "Failed to ignore later characters.", KeyPrefix.of( "abcdefgh" ),
+				KeyPrefix.of( "abcdefghijk" ) );
+		assertEquals( "Failed to end the prefix at a wide character.", 0x61FF000000000000L,
+				KeyPrefix.of( "a\u0100z" ) );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.KeyPrefix#compare(String, long, String, long)} to
+	 * agree with String.compareTo on keys with shared prefixes, zero characters
+	 * and characters above 0xFF.
+	 */
+	@Test
+	public void testCompare_AgreesWithString()
+	{
+		char[] alphabet = { '\u0000', 'a', 'b', '\u00FE', '\u00FF', '\u0100', '\u0101' };
+		Random random = new Random( 16 );
+		String[] keys = new String[400];
+		for( int i = 0; i < keys.length; i++ )
+		{
+			StringBuilder key = new StringBuilder();
+			for( int length = random.nextInt( 12 ); length > 0; length-- )
+			{
+				key.append( alphabet[random.nextInt( alphabet.length )] );
+			}
+			keys[i] = key.toString();
+		}
+
+		for( String first : keys )
+		{
+			for( String second : keys )
+			{
+				int expected = Integer.signum( first.compareTo( second ) );
+				int actual = Integer.signum(
+						KeyPrefix.compare( first, KeyPrefix.of( first ), second, KeyPrefix.of( second ) ) );
+				assertEquals( "Failed to order " + first + " and " + second, expected, actual );
+			}
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import implementations.RadixTrie;
+
+/**
+ * Class Description: Unit tests for the compressed radix trie.
+ */
+
+public class RadixTrieTest
+{
+	// Attributes
+	private RadixTrie<Integer> trie;
+
+	/**
+	 * Initializes an empty trie before each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		trie = new RadixTrie<Integer>();
+	}
+
+	/**
+	 * Cleans up instances used after each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		trie = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.RadixTrie#put(String, Object)} and
+	 * {@link implementations.RadixTrie#get(String)} with keys that split edges,
+	 * end part way along them and are prefixes of each other.
+	 */
+	@Test
+	public void testPutAndGet()
+	{
+		String[] keys = { "interval", "internal", "inter", "in", "", "trans", "transit", "i" };
+		for( int i = 0; i < keys.length; i++ )
+		{
+			assertNull( "Failed to add " + keys[i], trie.put( keys[i], i ) );
+		}
+		assertEquals( "Failed to replace value.", 0, (int) trie.put( "interval", 100 ) );
+
+		assertEquals( "Failed to update size.", keys.length, trie.size() );
+		assertEquals( "Failed to find key.", 100, (int) trie.get( "interval" ) );
+		for( int i = 1; i < keys.length; i++ )
+		{
+			assertEquals( "Failed to find " + keys[i], i, (int) trie.get( keys[i] ) );
+		}
+		for( String missing : new String[] { "int", "intervals", "interv", "tran", "x", "transits" } )
+		{
+			assertNull( "Failed to return null for " + missing, trie.get( missing ) );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.RadixTrie#getOrAdd(String, java.util.function.Supplier)}
+	 * to create each value only once.
+	 */
+	@Test
+	public void testGetOrAdd()
+	{
+		int[] created = new int[1];
+		for( int round = 0; round < 3; round++ )
+		{
+			for( String key : new String[] { "un", "undo", "unto", "up" } )
+			{
+				trie.getOrAdd( key, () -> ++created[0] );
+			}
+		}
+		assertEquals( "Failed to create each value once.", 4, created[0] );
+		assertEquals( "Failed to update size.", 4, trie.size() );
+		assertEquals( "Failed to return the existing value.", 2, (int) trie.getOrAdd( "undo", () -> -1 ) );
+
+		try
+		{
+			trie.getOrAdd( "none", () -> null );
+			fail( "Failed to throw NullPointerException." );
+		}
+		catch( NullPointerException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.RadixTrie#forEach(java.util.function.BiConsumer)}
+	 * and {@link implementations.RadixTrie#forEachWithPrefix(String, java.util.function.BiConsumer)}
+	 * against the order of a TreeMap.
+	 */
+	@Test
+	public void testOrderAndPrefixes()
+	{
+		Random random = new Random( 7 );
+		TreeMap<String, Integer> expected = new TreeMap<String, Integer>();
+		for( int i = 0; i < 5000; i++ )
+		{
+			StringBuilder key = new StringBuilder();
+			for( int length = random.nextInt( 8 ); length > 0; length-- )
+			{
+				key.append( (char) ( 'a' + random.nextInt( 4 ) ) );
+			}
+			expected.put( key.toString(), i );
+			trie.put( key.toString(), i );
+		}
+		assertEquals( "Failed to update size.", expected.size(), trie.size() );
+
+		ArrayList<String> keys = new ArrayList<String>();
+		trie.forEach( ( key, value ) -> {
+			assertEquals( "Failed to keep value of " + key, expected.get( key ), value );
+			keys.add( key );
+		} );
+		assertEquals( "Failed to visit keys in order.", new ArrayList<String>( expected.keySet() ), keys );
+
+		for( String prefix : new String[] { "", "a", "ab", "abc", "dddd", "abcdabcd" } )
+		{
+			ArrayList<String> found = new ArrayList<String>();
+			trie.forEachWithPrefix( prefix, ( key, value ) -> found.add( key ) );
+			ArrayList<String> shouldBe = new ArrayList<String>(
+					expected.subMap( prefix, prefix + Character.MAX_VALUE ).keySet() );
+			assertEquals( "Failed to visit keys with prefix " + prefix, shouldBe, found );
+		}
+	}
+
+	/**
+	 * Test method for a prefix that ends part way along an edge.
+	 */
+	@Test
+	public void testForEachWithPrefix_InsideEdge()
+	{
+		trie.put( "transport", 1 );
+		trie.put( "transpose", 2 );
+		trie.put( "trap", 3 );
+
+		ArrayList<String> found = new ArrayList<String>();
+		trie.forEachWithPrefix( "transp", ( key, value ) -> found.add( key ) );
+		assertEquals( "Failed to visit keys below the edge.", Arrays.asList( "transport", "transpose" ), found );
+
+		found.clear();
+		trie.forEachWithPrefix( "transx", ( key, value ) -> found.add( key ) );
+		assertTrue( "Failed to stop at a mismatch.", found.isEmpty() );
+	}
+
+	/**
+	 * Test method for serialization, which must keep keys and values.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	@SuppressWarnings( "unchecked" )
+	public void testSerialization() throws Exception
+	{
+		trie.put( "alpha", 1 );
+		trie.put( "alps", 2 );
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream( bytes );
+		out.writeObject( trie );
+		out.close();
+		ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+		RadixTrie<Integer> copy = (RadixTrie<Integer>) in.readObject();
+
+		assertEquals( "Failed to keep size.", 2, copy.size() );
+		assertEquals( "Failed to keep value.", 2, (int) copy.get( "alps" ) );
+		copy.clear();
+		assertTrue( "Failed to clear trie.", copy.isEmpty() );
+		assertNull( "Failed to return null.", copy.get( "alpha" ) );
+	}
+}
@@ -0,0 +1,203 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import implementations.WordTokenizer;
+
+/**
+ * Class Description: Unit tests for the table-driven tokenizer, which must
+ * give exactly the words of the regular expressions WordTracker used before.
+ */
+
+public class WordTokenizerTest
+{
+	WordTokenizer tokenizer;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		tokenizer = new WordTokenizer();
+	}
+
+	/**
+	 * Test method for {@link implementations.WordTokenizer#next()} on every line
+	 * of the sample files, against the regular expressions.
+	 *
+	 * @throws IOException if a sample file cannot be read
+	 */
+	@Test
+	public void testNext_SampleFiles() throws IOException
+	{
+		for( String file : new String[] { "res/test1.txt", "res/test2.txt", "res/test3.txt" } )
+		{
+			try( BufferedReader reader = new BufferedReader( new FileReader( file ) ) )
+			{
+				String line;
+				int lineNum = 1;
+				while( ( line = reader.readLine() ) != null )
+				{
+					assertEquals( "Failed to split line " + lineNum + " of " + file, expected( line ),
+							actual( line ) );
+					lineNum++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.WordTokenizer#next()} on every kind
+	 * of whitespace, punctuation and characters outside ASCII.
+	 */
+	@Test
+	public void testNext_EdgeCases()
+	{
+		String[] lines = { "", "   ", "  Leading and trailing  ", "tab\tvertical\u000Btab\fform\rfeed\nnewline",
+				"don't co-op e.g. -- ... !!", "caf\u00E9 na\u00EFve \u00C9T\u00C9 \u4E2D\u6587 a\u00A0b",
+				"MiXeD CaSe 42 R2D2", "x" };
+		for( String line : lines )
+		{
+			assertEquals( "Failed to split \"" + line + "\"", expected( line ), actual( line ) );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.WordTokenizer#hash()},
+	 * {@link implementations.WordTokenizer#matches(String)} and
+	 * {@link implementations.WordTokenizer#length()} on a word longer than the
+	 * starting buffer.
+	 */
+	@Test
+	public void testCurrentWord()
+	{
+		StringBuilder longWord = new StringBuilder();
+		for( int i = 0; i < 100; i++ )
+		{
+			longWord.append( (char) ( 'A' + i % 26 ) );
+		}
+		tokenizer.reset( "Hello, " + longWord );
+
+		assertTrue( "Failed to find the first word.", tokenizer.next() );
+		assertEquals( "Failed to give the length.", 5, tokenizer.length() );
+		assertEquals( "Failed to give the String hash.", "hello".hashCode(), tokenizer.hash() );
+		assertTrue( "Failed to match the word.", tokenizer.matches( "hello" ) );
+		assertFalse( "Failed to reject a longer word.", tokenizer.matches( "hellos" ) );
+		assertFalse( "Failed to reject a different word.", tokenizer.matches( "jello" ) );
+		assertFalse( "Failed to reject null.", tokenizer.matches( null ) );
+
+		String lower = longWord.toString().toLowerCase();
+		assertTrue( "Failed to find the second word.", tokenizer.next() );
+		assertEquals( "Failed to grow the buffer.", lower, tokenizer.word() );
+		assertEquals( "Failed to hash a long word.", lower.hashCode(), tokenizer.hash() );
+		assertFalse( "Failed to end the line.", tokenizer.next() );
+		assertFalse( "Failed to stay at the end of the line.", tokenizer.next() );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.WordTokenizer#reset(ByteBuffer, int, int)} to split
+	 * UTF-8 bytes into the same words as the decoded lines, including lines in
+	 * the middle of a buffer.
+	 *
+	 * @throws IOException if a sample file cannot be read
+	 */
+	@Test
+	public void testReset_Bytes() throws IOException
+	{
+		ArrayList<String> lines = new ArrayList<String>();
+		lines.add( "caf\u00E9 na\u00EFve \u00C9T\u00C9 \u4E2D\u6587 a\u00A0b \uD83D\uDE00x" );
+		lines.add( "  tab\tvertical\u000Btab\fform  " );
+		try( BufferedReader reader = new BufferedReader( new FileReader( "res/test3.txt" ) ) )
+		{
+			String line;
+			while( ( line = reader.readLine() ) != null )
+			{
+				lines.add( line );
+			}
+		}
+
+		for( String line : lines )
+		{
+			byte[] encoded = ( "x y\n" + line + "\nz" ).getBytes( StandardCharsets.UTF_8 );
+			int from = 4;
+			int to = encoded.length - 2;
+			ArrayList<String> words = new ArrayList<String>();
+			tokenizer.reset( ByteBuffer.wrap( encoded ), from, to );
+			while( tokenizer.next() )
+			{
+				words.add( tokenizer.word() );
+			}
+			assertEquals( "Failed to split the bytes of \"" + line + "\"", expected( line ), words );
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.WordTokenizer#reset(ByteBuffer, int, int)} with a
+	 * line past the end of the buffer.
+	 */
+	@Test( expected = IndexOutOfBoundsException.class )
+	public void testReset_BytesOutOfBounds()
+	{
+		tokenizer.reset( ByteBuffer.allocate( 4 ), 2, 5 );
+	}
+
+	/**
+	 * Test method for {@link implementations.WordTokenizer#reset(CharSequence)}
+	 * with a null line.
+	 */
+	@Test( expected = NullPointerException.class )
+	public void testReset_Null()
+	{
+		tokenizer.reset( null );
+	}
+
+	/**
+	 * Splits a line the way WordTracker did with regular expressions.
+	 *
+	 * @param line the line to split
+	 * @return the words of the line
+	 */
+	private static ArrayList<String> expected( String line )
+	{
+		ArrayList<String> words = new ArrayList<String>();
+		for( String token : line.split( "\\s+" ) )
+		{
+			String word = token.replaceAll( "[^a-zA-Z0-9]", "" ).toLowerCase();
+			if( word.length() > 0 )
+			{
+				words.add( word );
+			}
+		}
+		return words;
+	}
+
+	/**
+	 * Splits a line with the tokenizer under test.
+	 *
+	 * @param line the line to split
+	 * @return the words of the line
+	 */
+	private ArrayList<String> actual( String line )
+	{
+		ArrayList<String> words = new ArrayList<String>();
+		tokenizer.reset( line );
+		while( tokenizer.next() )
+		{
+			words.add( tokenizer.word() );
+		}
+		return words;
+	}
+}
@@ -0,0 +1,512 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import implementations.WordTracker;
+
+/**
+ * Class Description: Unit tests for the ways WordTracker reads its sources,
+ * which must all give the same index as reading each file line by line: files
+ * split into memory-mapped chunks, files split into words straight from their
+ * bytes, streams saved at checkpoints and files skipped or copied through the
+ * manifest of sources.
+ *
+ * WordTracker loads and saves repository.ser in the working directory, so any
+ * repository already there is moved aside for each test and put back after.
+ */
+
+public class WordTrackerTest
+{
+	// The repository WordTracker loads and saves
+	private static final File REPOSITORY = new File( "repository.ser" );
+
+	// Attributes
+	private File dir;
+	private File backup;
+
+	/**
+	 * UTF-8 or another charset under a name WordTracker does not recognize, with
+	 * no encoder, so WordTracker cannot tell it may read it as bytes and decodes
+	 * it line by line instead.
+	 */
+	private static class Decoded extends Charset
+	{
+		private final Charset base;
+
+		Decoded( Charset base )
+		{
+			super( "x-test-" + base.name(), null );
+			this.base = base;
+		}
+
+		@Override
+		public boolean contains( Charset other )
+		{
+			return false;
+		}
+
+		@Override
+		public boolean canEncode()
+		{
+			return false;
+		}
+
+		@Override
+		public CharsetDecoder newDecoder()
+		{
+			return base.newDecoder();
+		}
+
+		@Override
+		public CharsetEncoder newEncoder()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * Stream that gives one line at a time and, before each read, records
+	 * whether the repository has been saved and which words a tracker loading
+	 * it would find.
+	 */
+	private static class LineStream extends InputStream
+	{
+		private final List<byte[]> lines = new ArrayList<byte[]>();
+		private final ArrayList<Boolean> saved = new ArrayList<Boolean>();
+		private final ArrayList<List<String>> loaded = new ArrayList<List<String>>();
+		private int next;
+
+		LineStream( String... text )
+		{
+			for( String line : text )
+			{
+				lines.add( ( line + "\n" ).getBytes( StandardCharsets.UTF_8 ) );
+			}
+		}
+
+		@Override
+		public int read()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int read( byte[] buffer, int offset, int length )
+		{
+			saved.add( REPOSITORY.exists() );
+			loaded.add( REPOSITORY.exists() ? new WordTracker().findWordsWithPrefix( "" )
+					: Collections.<String>emptyList() );
+			if( next == lines.size() )
+			{
+				return -1;
+			}
+			byte[] line = lines.get( next++ );
+			System.arraycopy( line, 0, buffer, offset, line.length );
+			return line.length;
+		}
+	}
+
+	/**
+	 * Moves any repository aside and creates a directory for the test files.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		dir = Files.createTempDirectory( "wordtracker" ).toFile();
+		backup = new File( dir, REPOSITORY.getName() );
+		if( REPOSITORY.exists() )
+		{
+			Files.move( REPOSITORY.toPath(), backup.toPath() );
+		}
+	}
+
+	/**
+	 * Deletes the test files and the test repository, and puts back any
+	 * repository that was moved aside.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		REPOSITORY.delete();
+		if( backup.exists() )
+		{
+			Files.move( backup.toPath(), REPOSITORY.toPath(), StandardCopyOption.REPLACE_EXISTING );
+		}
+		for( File file : dir.listFiles() )
+		{
+			file.delete();
+		}
+		dir.delete();
+		dir = null;
+		backup = null;
+	}
+
+	/**
+	 * Test method for {@link implementations.WordTracker#indexFile(String, int)}
+	 * to give the same line numbers as reading the file in one go, for every
+	 * number of chunks and every kind of line break, with chunks that start in
+	 * the middle of lines.
+	 *
+	 * @throws IOException if a test file cannot be written or read
+	 */
+	@Test
+	public void testIndexFile_ChunksMatchSequential() throws IOException
+	{
+		for( String lineBreak : new String[] { "\n", "\r\n", "\r", null } )
+		{
+			File file = write( "chunked.txt", text( 7, 3000, lineBreak ) );
+			WordTracker sequential = new WordTracker();
+			sequential.indexFile( file.getPath() );
+			String expected = sequential.makeOccurrenceReport();
+
+			for( int chunks = 2; chunks <= 9; chunks++ )
+			{
+				WordTracker chunked = new WordTracker();
+				chunked.indexFile( file.getPath(), chunks );
+				assertEquals( "Failed to number lines in " + chunks + " chunks with " + describe( lineBreak ),
+						expected, chunked.makeOccurrenceReport() );
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.WordTracker#indexFile(String)} to
+	 * give the same index reading each charset it can split as bytes as it does
+	 * decoding the same charset, including bytes that are not valid in it.
+	 *
+	 * @throws IOException if a test file cannot be written or read
+	 */
+	@Test
+	public void testIndexFile_BytesMatchDecoded() throws IOException
+	{
+		List<Charset> charsets = new ArrayList<Charset>( Arrays.asList( StandardCharsets.UTF_8,
+				StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII ) );
+		if( Charset.isSupported( "windows-1252" ) )
+		{
+			charsets.add( Charset.forName( "windows-1252" ) );
+		}
+
+		for( Charset charset : charsets )
+		{
+			String sample = "caf\u00E9 na\u00EFve \u00C9T\u00C9 \u4E2D\u6587 a\u00A0b d\u00E9j\u00E0-vu\r\n";
+			for( int seed = 0; seed < 20; seed++ )
+			{
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				bytes.write( sample.getBytes( charset ) );
+				bytes.write( text( seed, 500, null ) );
+				File file = write( "charset.txt", bytes.toByteArray() );
+
+				assertEquals( "Failed to read " + charset + " as bytes, seed " + seed,
+						index( file, new Decoded( charset ) ), index( file, charset ) );
+			}
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.WordTracker#processStream(InputStream, String, long, long)}
+	 * to save the repository every given number of lines while the stream is
+	 * read, and once more at the end.
+	 *
+	 * @throws IOException if the repository cannot be saved
+	 */
+	@Test
+	public void testProcessStream_CheckpointEveryLines() throws IOException
+	{
+		LineStream in = new LineStream( "alpha", "beta", "gamma", "delta", "epsilon" );
+		WordTracker tracker = new WordTracker();
+		tracker.processStream( in, "stream", 2, 0 );
+
+		assertEquals( "Failed to read one line at a time.", 6, in.saved.size() );
+		assertEquals( "Failed to wait for two lines before saving.", Arrays.asList( false, false, true ),
+				in.saved.subList( 0, 3 ) );
+		assertEquals( "Failed to save the first two lines.", Arrays.asList( "alpha", "beta" ), in.loaded.get( 2 ) );
+		assertEquals( "Failed to save the next two lines.", Arrays.asList( "alpha", "beta", "delta", "gamma" ),
+				in.loaded.get( 4 ) );
+		assertEquals( "Failed to save at the end of the stream.", tracker.makeLineReport(),
+				new WordTracker().makeLineReport() );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.WordTracker#processStream(InputStream, String, long, long)}
+	 * to save the repository only at the end when there are no checkpoints, and
+	 * number the lines of the stream under its source name.
+	 *
+	 * @throws IOException if the repository cannot be saved
+	 */
+	@Test
+	public void testProcessStream_NoCheckpoints() throws IOException
+	{
+		LineStream in = new LineStream( "alpha beta", "beta", "gamma alpha" );
+		WordTracker tracker = new WordTracker();
+		tracker.processStream( in, "stream", 0, 0 );
+
+		assertEquals( "Failed to save only at the end.", Collections.nCopies( 4, false ), in.saved );
+		assertTrue( "Failed to save at the end.", REPOSITORY.exists() );
+		assertEquals( "Failed to number the lines of the stream.",
+				"Word Tracker Report (Files and Lines)\n" + "===================================\n\n"
+						+ "alpha: stream (lines 1, 3)\n" + "beta: stream (lines 1, 2)\n"
+						+ "gamma: stream (lines 3)\n",
+				new WordTracker().makeLineReport() );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.WordTracker#processStream(InputStream, String, long, long)}
+	 * with a negative checkpoint.
+	 *
+	 * @throws IOException never
+	 */
+	@Test( expected = IllegalArgumentException.class )
+	public void testProcessStream_NegativeCheckpoint() throws IOException
+	{
+		new WordTracker().processStream( new LineStream(), "stream", -1, 0 );
+	}
+
+	/**
+	 * Test method for {@link implementations.WordTracker#processFiles(List, int)}
+	 * to skip a file whose size and modification time are as recorded without
+	 * reading it again.
+	 *
+	 * @throws IOException if a test file cannot be written or read
+	 */
+	@Test
+	public void testProcessFiles_SkipsUnchanged() throws IOException
+	{
+		File first = write( "first.txt", "alpha beta\ngamma\n" );
+		write( "second.txt", "beta delta\n" );
+		List<String> inputs = Collections.singletonList( dir.getPath() );
+		new WordTracker().processFiles( inputs, 2 );
+		String before = new WordTracker().makeLineReport();
+
+		// Change the words but not the size or modification time
+		long modified = first.lastModified();
+		write( "first.txt", "omega zeta\nkappa\n" );
+		first.setLastModified( modified );
+
+		WordTracker tracker = new WordTracker();
+		String output = capture( () -> tracker.processFiles( inputs, 2 ) );
+		assertEquals( "Failed to keep the report stream clean.", "", output );
+		assertTrue( "Failed to report skipped files.", tracker.getDiagnostics().startsWith(
+				"Unchanged files skipped: 2, identical files copied: 0, changed files read again: 0\n" ) );
+		assertEquals( "Failed to skip unchanged files.", before, tracker.makeLineReport() );
+	}
+
+	/**
+	 * Test method for {@link implementations.WordTracker#processFiles(List, int)}
+	 * to drop every occurrence of a changed file before reading it again,
+	 * leaving the other files alone.
+	 *
+	 * @throws IOException if a test file cannot be written or read
+	 */
+	@Test
+	public void testProcessFiles_RetractsChanged() throws IOException
+	{
+		WordTracker expected = new WordTracker();
+		File first = write( "first.txt", "alpha beta\ngamma\nalpha\n" );
+		File second = write( "second.txt", "beta delta\n" );
+		List<String> inputs = Collections.singletonList( dir.getPath() );
+		new WordTracker().processFiles( inputs, 2 );
+
+		write( "first.txt", "gamma\nepsilon beta gamma\n" );
+		WordTracker tracker = new WordTracker();
+		String output = capture( () -> tracker.processFiles( inputs, 2 ) );
+		assertEquals( "Failed to keep the report stream clean.", "", output );
+		assertTrue( "Failed to report the changed file.", tracker.getDiagnostics().startsWith(
+				"Unchanged files skipped: 1, identical files copied: 0, changed files read again: 1\n" ) );
+
+		expected.indexFile( first.getPath() );
+		expected.indexFile( second.getPath() );
+		assertEquals( "Failed to replace the occurrences of the changed file.", expected.makeOccurrenceReport(),
+				tracker.makeOccurrenceReport() );
+		assertEquals( "Failed to drop words only in the old file.", Arrays.asList( "beta", "delta", "epsilon", "gamma" ),
+				tracker.findWordsWithPrefix( "" ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.WordTracker#processFiles(List, int)}
+	 * to give a file identical to one already in the index, or to another new
+	 * file, a copy of its occurrences instead of reading it.
+	 *
+	 * @throws IOException if a test file cannot be written or read
+	 */
+	@Test
+	public void testProcessFiles_CopiesDuplicates() throws IOException
+	{
+		WordTracker expected = new WordTracker();
+		String text = "alpha beta\ngamma\n\nalpha delta\n";
+		File first = write( "first.txt", text );
+		List<String> inputs = Collections.singletonList( dir.getPath() );
+		new WordTracker().processFiles( inputs, 2 );
+
+		File copy = write( "copy.txt", text );
+		File other = write( "other.txt", "beta\n" );
+		File otherCopy = write( "other2.txt", "beta\n" );
+		WordTracker tracker = new WordTracker();
+		String output = capture( () -> tracker.processFiles( inputs, 2 ) );
+		assertEquals( "Failed to keep the report stream clean.", "", output );
+		assertTrue( "Failed to report the copied files.", tracker.getDiagnostics().startsWith(
+				"Unchanged files skipped: 1, identical files copied: 2, changed files read again: 0\n" ) );
+
+		for( File file : new File[] { first, copy, other, otherCopy } )
+		{
+			expected.indexFile( file.getPath() );
+		}
+		assertEquals( "Failed to copy the occurrences of identical files.", expected.makeOccurrenceReport(),
+				tracker.makeOccurrenceReport() );
+	}
+
+	/**
+	 * Something that may throw an IOException, run while output is captured.
+	 */
+	private interface Action
+	{
+		void run() throws IOException;
+	}
+
+	/**
+	 * Runs an action and returns what it printed, leaving out the messages
+	 * about loading and saving the repository.
+	 *
+	 * @param action the action to run
+	 * @return the other lines printed, each ending in a line break
+	 * @throws IOException if the action throws one
+	 */
+	private static String capture( Action action ) throws IOException
+	{
+		PrintStream out = System.out;
+		ByteArrayOutputStream printed = new ByteArrayOutputStream();
+		System.setOut( new PrintStream( printed, true ) );
+		try
+		{
+			action.run();
+		}
+		finally
+		{
+			System.setOut( out );
+		}
+		StringBuilder result = new StringBuilder();
+		for( String line : printed.toString().split( "\\R" ) )
+		{
+			if( !line.isEmpty() && !line.startsWith( "Repository" ) )
+			{
+				result.append( line ).append( '\n' );
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Indexes a file with a new tracker reading it in a charset.
+	 *
+	 * @param file    the file to index
+	 * @param charset the charset to read it in
+	 * @return the occurrence report
+	 * @throws IOException if the file cannot be read
+	 */
+	private static String index( File file, Charset charset ) throws IOException
+	{
+		WordTracker tracker = new WordTracker( WordTracker.Index.TREE, 1024, charset );
+		tracker.indexFile( file.getPath() );
+		return tracker.makeOccurrenceReport();
+	}
+
+	/**
+	 * Makes random lines of ASCII letters, digits, spaces and punctuation, with
+	 * a few bytes above 0x7F and a few lines much longer than the rest.
+	 *
+	 * @param seed      the seed of the random lines
+	 * @param lines     the number of lines
+	 * @param lineBreak the line break to end each line with, or null for a
+	 *                  random mix of line feeds, carriage returns and both
+	 * @return the bytes of the lines
+	 */
+	private static byte[] text( long seed, int lines, String lineBreak )
+	{
+		Random random = new Random( seed );
+		byte[] letters = "abcdefghijXYZ0189  \t-'.".getBytes( StandardCharsets.US_ASCII );
+		String[] breaks = { "\n", "\r\n", "\r" };
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		for( int line = 0; line < lines; line++ )
+		{
+			int length = random.nextInt( 20 ) == 0 ? 500 + random.nextInt( 2000 ) : random.nextInt( 60 );
+			for( int i = 0; i < length; i++ )
+			{
+				bytes.write( random.nextInt( 30 ) == 0 ? 0x80 + random.nextInt( 128 )
+						: letters[random.nextInt( letters.length )] );
+			}
+			String end = lineBreak == null ? breaks[random.nextInt( breaks.length )] : lineBreak;
+			bytes.write( end.getBytes( StandardCharsets.US_ASCII ), 0, end.length() );
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Names a kind of line break for a failure message.
+	 *
+	 * @param lineBreak the line break, or null for a mix
+	 * @return its name
+	 */
+	private static String describe( String lineBreak )
+	{
+		if( lineBreak == null )
+		{
+			return "mixed line breaks";
+		}
+		return lineBreak.replace( "\r", "\\r" ).replace( "\n", "\\n" );
+	}
+
+	/**
+	 * Writes text to a file in the test directory in UTF-8.
+	 *
+	 * @param name the name of the file
+	 * @param text the text to write
+	 * @return the file
+	 * @throws IOException if the file cannot be written
+	 */
+	private File write( String name, String text ) throws IOException
+	{
+		return write( name, text.getBytes( StandardCharsets.UTF_8 ) );
+	}
+
+	/**
+	 * Writes bytes to a file in the test directory.
+	 *
+	 * @param name  the name of the file
+	 * @param bytes the bytes to write
+	 * @return the file
+	 * @throws IOException if the file cannot be written
+	 */
+	private File write( String name, byte[] bytes ) throws IOException
+	{
+		File file = new File( dir, name );
+		Files.write( file.toPath(), bytes );
+		return file;
+	}
+}